@@ -0,0 +1,132 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file against a checked-in baseline, and fails when a benchmark got slower by more than the
+ * given tolerance.
+ *
+ * <p>
+ * Scores only mean something on the kind of machine and the JVM they were measured with. A baseline file holds the
+ * scores of one host class (src/jmh/baseline.json is the reference one; other classes of machines, such as CI
+ * runners, get a file of their own), and within that file runs are keyed by JVM, so one file can keep a baseline for
+ * each Java version. A benchmark that has no baseline for the running JVM fails the comparison as well, rather than
+ * being silently skipped.
+ *
+ * <p>
+ * In record mode, the results are merged into the baseline file instead: runs of the same benchmark on the same JVM
+ * are replaced, the others are kept.
+ *
+ * <pre>
+ * java BenchmarkBaseline baseline.json result.json [tolerance] [failOnRegression] [record]
+ * </pre>
+ */
+public class BenchmarkBaseline {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaseline <baseline.json> <result.json> [tolerance] [failOnRegression] [record]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        File resultFile = new File(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+        boolean failOnRegression = args.length <= 3 || Boolean.parseBoolean(args[3]);
+        boolean record = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+        Map<String, JsonNode> results = load(resultFile);
+        if (record) {
+            Map<String, JsonNode> baseline = baselineFile.exists() ? load(baselineFile) : new LinkedHashMap<String, JsonNode>();
+            baseline.putAll(results);
+            ArrayNode runs = MAPPER.createArrayNode();
+            runs.addAll(baseline.values());
+            MAPPER.writeValue(baselineFile, runs);
+            System.out.println("Recorded " + results.size() + " benchmark(s) in " + baselineFile);
+            return;
+        }
+        if (!baselineFile.exists()) {
+            System.out.println("No baseline at " + baselineFile + "; record one with -Djmh.record=true");
+            if (failOnRegression)
+                System.exit(1);
+            return;
+        }
+        Map<String, JsonNode> baseline = load(baselineFile);
+
+        int regressions = 0;
+        int missing = 0;
+        System.out.println(String.format("%-70s %14s %14s %8s", "benchmark", "baseline", "current", "change"));
+        for (Map.Entry<String, JsonNode> e : results.entrySet()) {
+            String name = e.getKey().substring(e.getKey().indexOf(' ') + 1);
+            JsonNode current = e.getValue().get("primaryMetric");
+            JsonNode before = baseline.get(e.getKey());
+            String unit = current.get("scoreUnit").asText();
+            if (before == null || !unit.equals(before.get("primaryMetric").get("scoreUnit").asText())) {
+                missing++;
+                System.out.println(String.format("%-70s %14s %14.3f %8s", name, "-", current.get("score").asDouble(), "missing"));
+                continue;
+            }
+
+            double was = before.get("primaryMetric").get("score").asDouble();
+            double now = current.get("score").asDouble();
+            // time per operation goes up when slower, operations per time unit go down
+            double slowdown = unit.endsWith("/op") ? now / was - 1 : was / now - 1;
+            boolean regressed = slowdown > tolerance;
+            if (regressed)
+                regressions++;
+            System.out.println(String.format("%-70s %14.3f %14.3f %+7.1f%%%s",
+                    name, was, now, slowdown * 100, regressed ? "  REGRESSION" : ""));
+        }
+
+        if (regressions > 0)
+            System.out.println(regressions + " benchmark(s) got slower by more than " + Math.round(tolerance * 100) + "%");
+        if (missing > 0)
+            System.out.println(missing + " benchmark(s) have no baseline for " + jvm(results.values().iterator().next())
+                    + " in " + baselineFile + "; record them with -Djmh.record=true");
+        if (failOnRegression && regressions + missing > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Identifies the JVM a run was measured with: its name, its Java feature version and the options it ran with.
+     * Updates within the same Java version share a baseline.
+     */
+    private static String jvm(JsonNode run) {
+        String version = run.path("jdkVersion").asText();
+        if (version.startsWith("1."))
+            version = version.substring(2);
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end)))
+            end++;
+        return "[" + run.path("vmName").asText() + " " + version.substring(0, end) + " " + run.path("jvmArgs") + "]";
+    }
+
+    /**
+     * Keys each run by its JVM, its benchmark and its parameters.
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<String, JsonNode>();
+        for (JsonNode run : MAPPER.readTree(file)) {
+            StringBuilder key = new StringBuilder(jvm(run).replace(' ', '_')).append(' ');
+            key.append(run.get("benchmark").asText().replace("org.kohsuke.github.", ""));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Iterator<Map.Entry<String, JsonNode>> i = params.fields(); i.hasNext();) {
+                    Map.Entry<String, JsonNode> p = i.next();
+                    key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+                }
+            }
+            results.put(key.toString(), run);
+        }
+        return results;
+    }
+}
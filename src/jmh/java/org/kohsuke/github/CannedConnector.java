@@ -0,0 +1,78 @@
+package org.kohsuke.github;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HttpConnector} that answers every request with the same body, without any I/O,
+ * so that benchmarks only measure what the library does on either side of the wire.
+ */
+class CannedConnector implements HttpConnector {
+    private final byte[] body;
+
+    CannedConnector(byte[] body) {
+        this.body = body;
+    }
+
+    public HttpURLConnection connect(URL url) {
+        return new HttpURLConnection(url) {
+            @Override
+            public void connect() {
+                connected = true;
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public boolean usingProxy() {
+                return false;
+            }
+
+            @Override
+            public int getResponseCode() {
+                return HTTP_OK;
+            }
+
+            @Override
+            public String getResponseMessage() {
+                return "OK";
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(body);
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                    }
+                };
+            }
+
+            @Override
+            public String getHeaderField(String name) {
+                return null;
+            }
+
+            @Override
+            public Map<String, List<String>> getHeaderFields() {
+                return Collections.emptyMap();
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Payloads the benchmarks work on, built from responses recorded from GitHub.
+ */
+final class Fixtures {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private Fixtures() {
+    }
+
+    static byte[] resource(String name) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream(name);
+        if (in == null)
+            throw new IOException("No such fixture: " + name);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    static byte[] push() throws IOException {
+        return resource("GHEventPayloadTest/push.json");
+    }
+
+    /**
+     * The repository of a recorded pull request event, repeated with distinct ids and names.
+     */
+    static byte[] repositories(int count) throws IOException {
+        JsonNode repository = JSON.readTree(resource("GHEventPayloadTest/pull_request.json")).get("repository");
+        ArrayNode all = JSON.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode r = repository.deepCopy();
+            r.put("id", 35129377 + i);
+            r.put("name", "public-repo-" + i);
+            r.put("full_name", "baxterthehacker/public-repo-" + i);
+            all.add(r);
+        }
+        return JSON.writeValueAsBytes(all);
+    }
+
+    static byte[] pullRequestFiles(int count) throws IOException {
+        JsonNode file = JSON.readTree(resource("pull_request_file.json"));
+        ArrayNode all = JSON.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode f = file.deepCopy();
+            f.put("filename", "src/main/java/org/kohsuke/github/File" + i + ".java");
+            all.add(f);
+        }
+        return JSON.writeValueAsBytes(all);
+    }
+
+    static byte[] users(int first, int count) throws IOException {
+        JsonNode user = JSON.readTree(resource("GHEventPayloadTest/pull_request.json")).get("sender");
+        ArrayNode all = JSON.createArrayNode();
+        for (int i = first; i < first + count; i++) {
+            ObjectNode u = user.deepCopy();
+            u.put("id", i);
+            u.put("login", "user" + i);
+            all.add(u);
+        }
+        return JSON.writeValueAsBytes(all);
+    }
+}
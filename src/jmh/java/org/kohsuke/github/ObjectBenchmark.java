@@ -0,0 +1,67 @@
+package org.kohsuke.github;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-object work done after deserialization: timestamps and debug output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectBenchmark {
+    private GHRepository repository;
+    private Date date;
+
+    @Setup
+    public void setUp() throws IOException {
+        repository = GitHub.MAPPER.readerFor(GHRepository[].class).<GHRepository[]>readValue(Fixtures.repositories(1))[0];
+        date = new Date(1500000000000L);
+    }
+
+    /**
+     * The format of most payloads, which is only tried after the legacy format fails.
+     */
+    @Benchmark
+    public Date parseIsoDate() {
+        return GitHub.parseDate("2017-07-14T02:40:00Z");
+    }
+
+    /**
+     * The format GitHub uses in some older payloads.
+     */
+    @Benchmark
+    public Date parseLegacyDate() {
+        return GitHub.parseDate("2017/07/14 02:40:00 +0000");
+    }
+
+    @Benchmark
+    public String printDate() {
+        return GitHub.printDate(date);
+    }
+
+    @Benchmark
+    public Date getCreatedAt() throws IOException {
+        return repository.getCreatedAt();
+    }
+
+    @Benchmark
+    public String repositoryToString() {
+        return repository.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Walking through paginated results served by a local stub of the API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+    private static final int PAGES = 10;
+    private static final int PER_PAGE = 30;
+    private static final Pattern PAGE = Pattern.compile("(?:^|&)page=(\\d+)");
+
+    private HttpServer server;
+    private byte[][] pages;
+    private GitHub gitHub;
+
+    @Setup
+    public void setUp() throws IOException {
+        pages = new byte[PAGES][];
+        for (int i = 0; i < PAGES; i++) {
+            pages[i] = Fixtures.users(i * PER_PAGE, PER_PAGE);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/users", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                Matcher m = PAGE.matcher(query == null ? "" : query);
+                int page = m.find() ? Integer.parseInt(m.group(1)) : 1;
+
+                String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/users?per_page=" + PER_PAGE + "&page=";
+                StringBuilder link = new StringBuilder();
+                if (page < PAGES)
+                    link.append('<').append(base).append(page + 1).append(">; rel=\"next\", ");
+                link.append('<').append(base).append(PAGES).append(">; rel=\"last\"");
+                exchange.getResponseHeaders().set("Link", link.toString());
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+                byte[] body = pages[page - 1];
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+
+        gitHub = new GitHubBuilder()
+                .withEndpoint("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) throws IOException {
+        for (GHUser u : gitHub.listUsers().withPageSize(PER_PAGE)) {
+            bh.consume(u);
+        }
+    }
+
+    @Benchmark
+    public void iterateWithPrefetch(Blackhole bh) throws IOException {
+        for (GHUser u : gitHub.listUsers().withPageSize(PER_PAGE).withPrefetch(2)) {
+            bh.consume(u);
+        }
+    }
+
+    @Benchmark
+    public void iterateWithParallelPrefetch(Blackhole bh) throws IOException {
+        for (GHUser u : gitHub.listUsers().withPageSize(PER_PAGE).withParallelPrefetch(4)) {
+            bh.consume(u);
+        }
+    }
+
+    /**
+     * All pages concatenated into one array by {@link Requester#to(String, Class)}.
+     */
+    @Benchmark
+    public GHUser[] collectArray() throws IOException {
+        return gitHub.retrieve().with("per_page", PER_PAGE).to("/users", GHUser[].class);
+    }
+}
@@ -0,0 +1,69 @@
+package org.kohsuke.github;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of API responses and event payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private byte[] repositories;
+    private byte[] pullRequestFiles;
+    private byte[] push;
+    private GitHub offline;
+    private GitHub canned;
+
+    @Setup
+    public void setUp() throws IOException {
+        repositories = Fixtures.repositories(100);
+        pullRequestFiles = Fixtures.pullRequestFiles(300);
+        push = Fixtures.push();
+        offline = GitHub.offline();
+        canned = new GitHubBuilder()
+                .withEndpoint("http://localhost")
+                .withConnector(new CannedConnector(repositories))
+                .build();
+    }
+
+    @Benchmark
+    public GHRepository[] repositories() throws IOException {
+        return GitHub.MAPPER.readerFor(GHRepository[].class).readValue(repositories);
+    }
+
+    /**
+     * Same payload as {@link #repositories()}, but going through {@link Requester} and its response handling.
+     */
+    @Benchmark
+    public GHRepository[] repositoriesThroughRequester() throws IOException {
+        return canned.retrieve().to("/user/repos", GHRepository[].class);
+    }
+
+    @Benchmark
+    public GHPullRequestFileDetail[] pullRequestFiles() throws IOException {
+        return GitHub.MAPPER.readerFor(GHPullRequestFileDetail[].class).readValue(pullRequestFiles);
+    }
+
+    @Benchmark
+    public GHEventPayload.Push pushPayload() throws IOException {
+        return offline.parseEventPayload(new InputStreamReader(new ByteArrayInputStream(push), "UTF-8"), GHEventPayload.Push.class);
+    }
+}
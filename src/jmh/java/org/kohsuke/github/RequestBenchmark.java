@@ -0,0 +1,84 @@
+package org.kohsuke.github;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building requests, that is their URL, query string and headers, against a connector that answers
+ * right away with an empty body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+    private GitHub objects;
+    private GitHub arrays;
+
+    @Setup
+    public void setUp() throws IOException {
+        objects = new GitHubBuilder()
+                .withEndpoint("http://localhost")
+                .withConnector(new CannedConnector("{}".getBytes("UTF-8")))
+                .build();
+        arrays = new GitHubBuilder()
+                .withEndpoint("http://localhost")
+                .withConnector(new CannedConnector("[]".getBytes("UTF-8")))
+                .build();
+    }
+
+    @Benchmark
+    public GHUser plainGet() throws IOException {
+        return objects.retrieve().to("/users/kohsuke", GHUser.class);
+    }
+
+    /**
+     * A GET with the kind of query string the search and list methods build.
+     */
+    @Benchmark
+    public GHIssue[] getWithQuery() throws IOException {
+        return arrays.retrieve()
+                .with("state", "open")
+                .with("labels", "bug,help wanted")
+                .with("sort", "updated")
+                .with("direction", "desc")
+                .with("since", "2017-07-14T02:40:00Z")
+                .with("per_page", 100)
+                .to("/repos/kohsuke/github-api/issues", GHIssue[].class);
+    }
+
+    @Benchmark
+    public GHIssue[] firstPageOfIterator() {
+        Iterator<GHIssue[]> i = arrays.retrieve()
+                .with("state", "open")
+                .asIterator("/repos/kohsuke/github-api/issues", GHIssue[].class, 100);
+        return i.next();
+    }
+
+    /**
+     * A POST, whose arguments are serialized as a JSON body.
+     */
+    @Benchmark
+    public GHIssue post() throws IOException {
+        return objects.retrieve()
+                .method("POST")
+                .with("title", "Something is broken")
+                .with("body", "Steps to reproduce: ...")
+                .with("assignee", "kohsuke")
+                .to("/repos/kohsuke/github-api/issues", GHIssue.class);
+    }
+}
@@ -0,0 +1,239 @@
+package org.kohsuke.github;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Issues requests to GitHub in the background and hands back {@link Future}s,
+ * so that a single caller thread can keep several requests in flight.
+ *
+ * <p>
+ * Requests go through the same pipeline as their blocking counterparts, so the
+ * {@link RateLimitHandler} and {@link AbuseLimitHandler} of the {@link GitHub} still apply.
+ * Connections are blocking, so each running request occupies one thread of the executor.
+ * At most {@link #getMaxConcurrency()} requests submitted through this object run at any given time;
+ * further submissions are queued without taking a thread until one of them completes.
+ * The limit is specific to this object: requests made through another {@link AsyncGitHub}, or directly
+ * through {@link GitHub}, are not counted against it, even when they go to the same API host.
+ *
+ * <pre>
+ * List&lt;Future&lt;GHRepository>> repos = new ArrayList&lt;Future&lt;GHRepository>>();
+ * for (String name : names)
+ *     repos.add(gitHub.async().getRepository(name));
+ * for (Future&lt;GHRepository> r : repos)
+ *     System.out.println(r.get().getStargazersCount());
+ * </pre>
+ *
+ * @see GitHub#async()
+ */
+public class AsyncGitHub {
+    private final GitHub root;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxConcurrency;
+    /**
+     * Calls submitted while all permits were taken, in the order they were submitted.
+     */
+    private final Queue<FutureTask<?>> queued = new ConcurrentLinkedQueue<FutureTask<?>>();
+    /**
+     * Set on a thread while it runs calls of any {@link AsyncGitHub}.
+     */
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<Boolean>();
+
+    /*package*/ AsyncGitHub(GitHub root, ExecutorService executor, int maxConcurrency) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        this.root = root;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.inFlight = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Maximum number of requests submitted through this object that run concurrently.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Runs arbitrary blocking calls against {@link GitHub} in the background,
+     * counting each call as one request against {@link #getMaxConcurrency()}.
+     */
+    public <T> Future<T> submit(Callable<T> call) {
+        FutureTask<T> task = new FutureTask<T>(call);
+        queued.add(task);
+        dispatch();
+        return task;
+    }
+
+    /**
+     * Like {@link #submit(Callable)}, but when the calling thread is itself running a call of an {@link AsyncGitHub},
+     * runs the call right away on that thread instead.
+     *
+     * <p>
+     * This is for methods of this library that fan out and then wait for the results. If they were called from
+     * calls that hold all the permits, the calls they submitted would stay queued behind their callers forever.
+     */
+    /*package*/ <T> Future<T> fork(Callable<T> call) {
+        if (IN_CALL.get() == null)
+            return submit(call);
+        FutureTask<T> task = new FutureTask<T>(call);
+        task.run();
+        return task;
+    }
+
+    /**
+     * Hands queued calls to the executor for as long as permits are available.
+     * Called whenever a call is queued or a permit is released, so that no call is left behind.
+     */
+    private void dispatch() {
+        while (!queued.isEmpty() && inFlight.tryAcquire()) {
+            final FutureTask<?> task = queued.poll();
+            if (task == null) {
+                inFlight.release();
+                continue;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        // keep the thread and the permit for as long as there are calls waiting
+                        FutureTask<?> next = task;
+                        Boolean outer = IN_CALL.get();
+                        IN_CALL.set(Boolean.TRUE);
+                        try {
+                            while (next != null) {
+                                next.run();
+                                next = queued.poll();
+                            }
+                        } finally {
+                            IN_CALL.set(outer);
+                            inFlight.release();
+                        }
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the executor was shut down
+                inFlight.release();
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * @see GitHub#getRepository(String)
+     */
+    public Future<GHRepository> getRepository(final String name) {
+        return submit(new Callable<GHRepository>() {
+            public GHRepository call() throws IOException {
+                return root.getRepository(name);
+            }
+        });
+    }
+
+    /**
+     * @see GitHub#getUser(String)
+     */
+    public Future<GHUser> getUser(final String login) {
+        return submit(new Callable<GHUser>() {
+            public GHUser call() throws IOException {
+                return root.getUser(login);
+            }
+        });
+    }
+
+    /**
+     * @see GitHub#getOrganization(String)
+     */
+    public Future<GHOrganization> getOrganization(final String name) {
+        return submit(new Callable<GHOrganization>() {
+            public GHOrganization call() throws IOException {
+                return root.getOrganization(name);
+            }
+        });
+    }
+
+    /**
+     * @see GHRepository#getPullRequest(int)
+     */
+    public Future<GHPullRequest> getPullRequest(final GHRepository repository, final int number) {
+        return submit(new Callable<GHPullRequest>() {
+            public GHPullRequest call() throws IOException {
+                return repository.getPullRequest(number);
+            }
+        });
+    }
+
+    /**
+     * @see GHRepository#getCommit(String)
+     */
+    public Future<GHCommit> getCommit(final GHRepository repository, final String sha1) {
+        return submit(new Callable<GHCommit>() {
+            public GHCommit call() throws IOException {
+                return repository.getCommit(sha1);
+            }
+        });
+    }
+
+    /**
+     * Eagerly walks a paginated collection in the background.
+     *
+     * @see PagedIterable#asList()
+     */
+    public <T> Future<List<T>> asList(final PagedIterable<T> iterable) {
+        return submit(new Callable<List<T>>() {
+            public List<T> call() {
+                return iterable.asList();
+            }
+        });
+    }
+
+    /**
+     * Waits for the result of a call, throwing the {@link IOException} it failed with, if any,
+     * even when it came wrapped in a {@link GHException} by a {@link PagedIterator}.
+     */
+    /*package*/ static <T> T await(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GHException && cause.getCause() instanceof IOException)
+                cause = cause.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new GHException("Background call failed", cause);
+        }
+    }
+
+    /**
+     * Creates the thread pool used by {@link GitHub#async()}, with one thread per request allowed in flight.
+     * Threads are daemons, so that an application does not need to shut the pool down.
+     */
+    /*package*/ static ExecutorService createDefaultExecutor(int size) {
+        return Executors.newFixedThreadPool(size, new DaemonThreadFactory("github-api async"));
+    }
+
+    /**
+     * Number of requests {@link GitHub#async()} runs concurrently.
+     */
+    /*package*/ static final int DEFAULT_CONCURRENCY = 8;
+}
@@ -0,0 +1,94 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Binary request parameter that is base64-encoded while the request body is written,
+ * so that neither the encoded form nor, for files and streams, the bytes themselves
+ * have to be held in memory.
+ *
+ * @see Requester#_with(String, Object)
+ */
+@JsonSerialize(using = Base64Content.Serializer.class)
+/*package*/ abstract class Base64Content {
+
+    /**
+     * Opens the bytes to send. Called once per attempt to send the request.
+     */
+    abstract InputStream open() throws IOException;
+
+    /**
+     * Number of characters of the encoded form, or -1 if it is only known once it has been sent,
+     * in which case the request body is sent in chunks.
+     */
+    abstract long getEncodedLength();
+
+    static Base64Content of(final byte[] bytes) {
+        return new Base64Content() {
+            InputStream open() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            long getEncodedLength() {
+                // padded, without line breaks
+                return (bytes.length + 2L) / 3 * 4;
+            }
+        };
+    }
+
+    /**
+     * The file is not measured up front, since it could change before it is sent.
+     */
+    static Base64Content of(final File file) {
+        return new Base64Content() {
+            InputStream open() throws IOException {
+                return new FileInputStream(file);
+            }
+
+            long getEncodedLength() {
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * The stream can only be read once, so a request that has to be sent again fails instead.
+     */
+    static Base64Content of(final InputStream stream) {
+        return new Base64Content() {
+            private boolean opened;
+
+            synchronized InputStream open() throws IOException {
+                if (opened)
+                    throw new IOException("The content stream has already been sent and can't be sent again");
+                opened = true;
+                return stream;
+            }
+
+            long getEncodedLength() {
+                return -1;
+            }
+        };
+    }
+
+    /*package*/ static final class Serializer extends JsonSerializer<Base64Content> {
+        @Override
+        public void serialize(Base64Content value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            InputStream in = value.open();
+            try {
+                gen.writeBinary(in, -1);
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.kohsuke.github;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers used to move request and response bodies around, kept for reuse so that
+ * large transfers don't allocate a fresh buffer each time.
+ */
+/*package*/ final class BufferPool {
+    /**
+     * Size of every buffer handed out.
+     */
+    static final int SIZE = 64 * 1024;
+
+    /**
+     * At most this many idle buffers are kept. More can be in use at once; they are just not kept afterwards.
+     */
+    private static final int MAX_IDLE = 16;
+
+    private static final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<ByteBuffer>();
+    private static final AtomicInteger idleCount = new AtomicInteger();
+
+    private BufferPool() {
+    }
+
+    /**
+     * Gets a cleared heap buffer of {@link #SIZE} bytes.
+     */
+    static ByteBuffer acquire() {
+        ByteBuffer buf = idle.poll();
+        if (buf == null)
+            return ByteBuffer.allocate(SIZE);
+        idleCount.decrementAndGet();
+        buf.clear();
+        return buf;
+    }
+
+    /**
+     * Gives back a buffer obtained from {@link #acquire()}. It must not be used afterwards.
+     */
+    static void release(ByteBuffer buf) {
+        if (idleCount.incrementAndGet() <= MAX_IDLE)
+            idle.offer(buf);
+        else
+            idleCount.decrementAndGet();
+    }
+}
@@ -0,0 +1,73 @@
+package org.kohsuke.github;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * A GET response kept by a {@link ResponseCache}: the validators GitHub handed out together with the raw body.
+ *
+ * <p>
+ * The pagination {@code Link} header is kept as well, since it is needed to keep walking
+ * a paginated collection when a page is served from the cache.
+ */
+public final class CachedResponse {
+    private final String etag;
+    private final String lastModified;
+    private final String link;
+    private final byte[] body;
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "avoid copying large bodies")
+    public CachedResponse(String etag, String lastModified, String link, byte[] body) {
+        if (body == null)
+            throw new IllegalArgumentException("body");
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.link = link;
+        this.body = body;
+    }
+
+    /**
+     * Value of the {@code ETag} response header.
+     */
+    @CheckForNull
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Value of the {@code Last-Modified} response header.
+     */
+    @CheckForNull
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Value of the {@code Link} response header used for pagination.
+     */
+    @CheckForNull
+    public String getLink() {
+        return link;
+    }
+
+    /**
+     * Raw response body, after the content encoding has been removed.
+     * The array is shared and must not be modified.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "avoid copying large bodies")
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Approximate number of bytes this response occupies, used by caches to bound their size.
+     */
+    public int size() {
+        return body.length + length(etag) + length(lastModified) + length(link);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length() * 2;
+    }
+}
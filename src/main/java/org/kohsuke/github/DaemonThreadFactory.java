@@ -0,0 +1,23 @@
+package org.kohsuke.github;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names the background threads of this library and makes them daemons,
+ * so that an application does not need to shut anything down to exit.
+ */
+class DaemonThreadFactory implements ThreadFactory {
+    private final String name;
+    private final AtomicInteger count = new AtomicInteger();
+
+    DaemonThreadFactory(String name) {
+        this.name = name;
+    }
+
+    public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, name + " #" + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    }
+}
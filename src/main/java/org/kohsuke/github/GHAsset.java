@@ -1,5 +1,6 @@
 package org.kohsuke.github;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 
@@ -73,6 +74,19 @@ public class GHAsset extends GHObject {
         return browser_download_url;
     }
 
+    /**
+     * Downloads this asset into the given file, which is replaced.
+     *
+     * <p>
+     * Large assets are fetched in several ranges at once, and a download that failed part way
+     * only fetches what is missing when tried again with the same file.
+     *
+     * @return the size of the file, which is checked against {@link #getSize()}.
+     */
+    public long downloadTo(File target) throws IOException {
+        return new RangeDownload(root, root.getApiURL(getApiRoute()), "application/octet-stream", size).to(target);
+    }
+
     private void edit(String key, Object value) throws IOException {
         new Requester(root)._with(key, value).method("PATCH").to(getApiRoute());
     }
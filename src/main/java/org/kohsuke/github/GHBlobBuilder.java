@@ -1,8 +1,8 @@
 package org.kohsuke.github;
 
-import org.apache.commons.codec.binary.Base64;
-
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Builder pattern for creating a new blob.
@@ -30,8 +30,26 @@ public class GHBlobBuilder {
      * Configures a blob with the specified binary {@code content}.
      */
     public GHBlobBuilder binaryContent(byte[] content) {
-        String base64Content = Base64.encodeBase64String(content);
-        req.with("content", base64Content);
+        return binaryContent(Base64Content.of(content));
+    }
+
+    /**
+     * Configures a blob with the binary content read from the given stream,
+     * which is encoded as it is sent and closed afterwards.
+     */
+    public GHBlobBuilder binaryContent(InputStream content) {
+        return binaryContent(Base64Content.of(content));
+    }
+
+    /**
+     * Configures a blob with the binary content of the given file, which is encoded as it is sent.
+     */
+    public GHBlobBuilder binaryContent(File content) {
+        return binaryContent(Base64Content.of(content));
+    }
+
+    private GHBlobBuilder binaryContent(Base64Content content) {
+        req._with("content", content);
         req.with("encoding", "base64");
         return this;
     }
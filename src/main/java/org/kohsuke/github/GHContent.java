@@ -2,10 +2,13 @@ package org.kohsuke.github;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
 import org.apache.commons.io.IOUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A Content of a repository.
@@ -34,6 +37,12 @@ public class GHContent {
     private String git_url;    // this is the Blob url
     private String html_url;    // this is the UI
     private String download_url;
+    /**
+     * Content this object was last updated with, which {@link #content} is encoded from when asked for.
+     */
+    private transient byte[] updatedContent;
+
+    private static final String RAW = "application/vnd.github.VERSION.raw";
 
     public GHRepository getOwner() {
         return repository;
@@ -74,9 +83,17 @@ public class GHContent {
      * @deprecated
      *      Use {@link #read()}
      */
-    @SuppressFBWarnings("DM_DEFAULT_ENCODING")
     public String getContent() throws IOException {
-        return new String(Base64.decodeBase64(getEncodedContent()));
+        if (updatedContent!=null)
+            return new String(updatedContent, "UTF-8");
+        if (content!=null)
+            return new String(Base64.decodeBase64(content), "UTF-8");
+        InputStream in = read();
+        try {
+            return IOUtils.toString(in, "UTF-8");
+        } finally {
+            in.close();
+        }
     }
 
     /**
@@ -91,10 +108,17 @@ public class GHContent {
      *      Use {@link #read()}
      */
     public String getEncodedContent() throws IOException {
+        if (updatedContent!=null)
+            content = Base64.encodeBase64String(updatedContent);
+        updatedContent = null;
         if (content!=null)
             return content;
-        else
-            return Base64.encodeBase64String(IOUtils.toByteArray(read()));
+        InputStream in = read();
+        try {
+            return IOUtils.toString(new Base64InputStream(in, true, 0, null), "US-ASCII");
+        } finally {
+            in.close();
+        }
     }
 
     public String getUrl() {
@@ -117,6 +141,24 @@ public class GHContent {
         return new Requester(root).method("GET").asStream(getDownloadUrl());
     }
 
+    /**
+     * Streams the content stored here into the given channel, without holding it in memory.
+     *
+     * @return number of bytes written.
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        return root.retrieve().withHeader("Accept", RAW).transferTo(url, target);
+    }
+
+    /**
+     * Streams the content stored here into the given file, which is replaced.
+     *
+     * @return number of bytes written.
+     */
+    public long transferTo(File target) throws IOException {
+        return root.retrieve().withHeader("Accept", RAW).transferTo(url, target);
+    }
+
     /**
      * URL to retrieve the raw content of the file. Null if this is a directory.
      */
@@ -177,13 +219,34 @@ public class GHContent {
     }
 
     public GHContentUpdateResponse update(byte[] newContentBytes, String commitMessage, String branch) throws IOException {
-        String encodedContent = Base64.encodeBase64String(newContentBytes);
+        GHContentUpdateResponse response = update(Base64Content.of(newContentBytes), commitMessage, branch);
+        // only encoded if asked for
+        this.updatedContent = newContentBytes;
+        return response;
+    }
+
+    /**
+     * Replaces the content with the bytes read from the given stream, which are encoded as they are sent
+     * instead of being loaded in memory first. The stream is closed afterwards.
+     */
+    public GHContentUpdateResponse update(InputStream newContent, String commitMessage, String branch) throws IOException {
+        return update(Base64Content.of(newContent), commitMessage, branch);
+    }
+
+    /**
+     * Replaces the content with that of the given local file, which is encoded as it is sent
+     * instead of being loaded in memory first.
+     */
+    public GHContentUpdateResponse update(File newContent, String commitMessage, String branch) throws IOException {
+        return update(Base64Content.of(newContent), commitMessage, branch);
+    }
 
+    private GHContentUpdateResponse update(Base64Content newContent, String commitMessage, String branch) throws IOException {
         Requester requester = new Requester(root)
             .with("path", path)
             .with("message", commitMessage)
             .with("sha", sha)
-            .with("content", encodedContent)
+            ._with("content", newContent)
             .method("PUT");
 
         if (branch != null) {
@@ -195,7 +258,9 @@ public class GHContent {
         response.getContent().wrap(repository);
         response.getCommit().wrapUp(repository);
 
-        this.content = encodedContent;
+        // the new content is fetched again when asked for
+        this.content = null;
+        this.updatedContent = null;
         return response;
     }
 
@@ -61,4 +61,27 @@ public enum GHEvent {
         if (this==ALL)  return "*";
         return name().toLowerCase(Locale.ENGLISH);
     }
+
+    /**
+     * Returns the payload type that this event is bound to, or null if there's none yet.
+     */
+    /*package*/ Class<? extends GHEventPayload> payloadType() {
+        switch (this) {
+        case COMMIT_COMMENT:                return GHEventPayload.CommitComment.class;
+        case CREATE:                        return GHEventPayload.Create.class;
+        case DELETE:                        return GHEventPayload.Delete.class;
+        case DEPLOYMENT:                    return GHEventPayload.Deployment.class;
+        case DEPLOYMENT_STATUS:             return GHEventPayload.DeploymentStatus.class;
+        case FORK:                          return GHEventPayload.Fork.class;
+        case ISSUE_COMMENT:                 return GHEventPayload.IssueComment.class;
+        case PING:                          return GHEventPayload.Ping.class;
+        case PUBLIC:                        return GHEventPayload.Public.class;
+        case PULL_REQUEST:                  return GHEventPayload.PullRequest.class;
+        case PULL_REQUEST_REVIEW:           return GHEventPayload.PullRequestReview.class;
+        case PULL_REQUEST_REVIEW_COMMENT:   return GHEventPayload.PullRequestReviewComment.class;
+        case PUSH:                          return GHEventPayload.Push.class;
+        case REPOSITORY:                    return GHEventPayload.Repository.class;
+        default:                            return null;
+        }
+    }
 }
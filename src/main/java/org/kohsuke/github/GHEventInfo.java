@@ -1,10 +1,19 @@
 package org.kohsuke.github;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents an event.
@@ -15,11 +24,17 @@ import java.util.Date;
 public class GHEventInfo {
     private GitHub root;
 
-    // we don't want to expose Jackson dependency to the user. This needs databinding
-    private ObjectNode payload;
+    // we don't want to expose Jackson dependency to the user. This needs databinding.
+    // Kept as the tokens it was read from, which is cheaper than a tree, until it's asked for.
+    private TokenBuffer payload;
+    /**
+     * The payload last bound, handed out again when the same type is asked for.
+     */
+    private transient volatile GHEventPayload boundPayload;
 
     private long id;
     private String created_at;
+    private transient volatile Timestamps.Parsed createdAt;
     private String type;
 
     // these are all shallow objects
@@ -43,11 +58,7 @@ public class GHEventInfo {
     public GHEvent getType() {
         String t = type;
         if (t.endsWith("Event"))    t=t.substring(0,t.length()-5);
-        for (GHEvent e : GHEvent.values()) {
-            if (e.name().replace("_","").equalsIgnoreCase(t))
-                return e;
-        }
-        return null;    // unknown event type
+        return TYPES.get(t.toLowerCase(Locale.ENGLISH));  // null if unknown
     }
 
     /*package*/ GHEventInfo wrapUp(GitHub root) {
@@ -60,7 +71,7 @@ public class GHEventInfo {
     }
 
     public Date getCreatedAt() {
-        return GitHub.parseDate(created_at);
+        return Timestamps.Parsed.toDate(createdAt = Timestamps.Parsed.of(created_at, createdAt));
     }
 
     /**
@@ -99,8 +110,77 @@ public class GHEventInfo {
      *      This must match the {@linkplain #getType() event type}.
      */
     public <T extends GHEventPayload> T getPayload(Class<T> type) throws IOException {
-        T v = GitHub.MAPPER.readValue(payload.traverse(), type);
+        GHEventPayload p = boundPayload;
+        if (type.isInstance(p))
+            return type.cast(p);
+        T v = GHEventPayload.readerFor(type).readValue(payload.asParser());
         v.wrapUp(root);
+        boundPayload = v;
         return v;
     }
+
+    /**
+     * Retrieves the payload as the {@link GHEventPayload} subtype that matches the {@linkplain #getType() event type}.
+     * It's only bound the first time, so later calls return the same object.
+     *
+     * @return null if there's no subtype for this event type yet.
+     */
+    @CheckForNull
+    public GHEventPayload getPayload() throws IOException {
+        GHEvent e = getType();
+        Class<? extends GHEventPayload> t = e == null ? null : e.payloadType();
+        return t == null ? null : getPayload(t);
+    }
+
+    /**
+     * Narrows a list of events down to the given types.
+     * Their payloads are not bound, so skipping events costs little more than listing them.
+     *
+     * <pre>
+     * for (GHEventInfo e : GHEventInfo.ofType(repo.listEvents(), GHEvent.PUSH, GHEvent.CREATE)) {
+     *     ...
+     * }
+     * </pre>
+     */
+    public static PagedIterable<GHEventInfo> ofType(final PagedIterable<GHEventInfo> events, GHEvent first, GHEvent... rest) {
+        final Set<GHEvent> types = EnumSet.of(first, rest);
+        return new PagedIterable<GHEventInfo>() {
+            public PagedIterator<GHEventInfo> _iterator(int pageSize) {
+                final PagedIterator<GHEventInfo> base = events._iterator(pageSize);
+                return new PagedIterator<GHEventInfo>(new Iterator<GHEventInfo[]>() {
+                    public boolean hasNext() {
+                        return base.hasNext();
+                    }
+
+                    public GHEventInfo[] next() {
+                        List<GHEventInfo> page = new ArrayList<GHEventInfo>();
+                        for (GHEventInfo e : base.nextPage()) {
+                            if (types.contains(e.getType()))
+                                page.add(e);
+                        }
+                        return page.toArray(new GHEventInfo[page.size()]);
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                }) {
+                    protected void wrapUp(GHEventInfo[] page) {
+                        // already done by the listing being narrowed down
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Event types by the lower-case name they go by in the events API, without the "Event" suffix.
+     */
+    private static final Map<String, GHEvent> TYPES = new HashMap<String, GHEvent>();
+
+    static {
+        for (GHEvent e : GHEvent.values()) {
+            TYPES.put(e.name().replace("_", "").toLowerCase(Locale.ENGLISH), e);
+        }
+    }
 }
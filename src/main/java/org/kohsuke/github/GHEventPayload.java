@@ -2,10 +2,13 @@ package org.kohsuke.github;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.ObjectReader;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.Reader;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base type for types used in databinding of the event payload.
@@ -41,6 +44,24 @@ public abstract class GHEventPayload {
         }
     }
 
+    /**
+     * Reader that binds payloads of the given type, created once per type since it's costly.
+     * Shared by the events API and {@link WebhookDispatcher}.
+     */
+    /*package*/ static ObjectReader readerFor(Class<? extends GHEventPayload> type) {
+        ObjectReader r = READERS.get(type);
+        if (r == null) {
+            r = GitHub.MAPPER.readerFor(type);
+            ObjectReader other = READERS.putIfAbsent(type, r);
+            if (other != null)
+                r = other;
+        }
+        return r;
+    }
+
+    private static final ConcurrentMap<Class<? extends GHEventPayload>, ObjectReader> READERS
+            = new ConcurrentHashMap<Class<? extends GHEventPayload>, ObjectReader>();
+
     /**
      * A pull request status has changed.
      *
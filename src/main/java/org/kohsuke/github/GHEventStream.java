@@ -0,0 +1,217 @@
+package org.kohsuke.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Follows an event feed, reporting each event once, oldest first, as it shows up.
+ *
+ * <p>
+ * Like {@link GHNotificationStream}, iterators either block until new events arrive, which is the default,
+ * or stop once they have reported what is new, as set by {@link #nonBlocking(boolean)}. The position in the feed
+ * is kept by the stream, so every iterator picks up where the previous one left off.
+ *
+ * <p>
+ * The feed is polled no more often than GitHub asks for with {@code X-Poll-Interval}. Each poll sends
+ * the ETag of the previous one, so that when nothing happened it costs a single 304 response, which doesn't
+ * count against the rate limit. Otherwise pages are only read until one holds an event that was already reported.
+ * Events can show up in the feed late, so the ids of the events reported lately are remembered to skip them
+ * instead of comparing ids.
+ *
+ * @see GHRepository#streamEvents()
+ * @see GHOrganization#streamEvents()
+ * @see GHUser#streamEvents()
+ */
+public class GHEventStream implements Iterable<GHEventInfo> {
+    private final GitHub root;
+    private final String apiUrl;
+    private boolean nonBlocking = false;
+
+    /**
+     * Events up to this id are considered as reported already.
+     */
+    private long after = -1;
+
+    /**
+     * Ids of the events reported lately, oldest first.
+     */
+    private final RecentEvents reported = new RecentEvents();
+
+    /**
+     * ETag of the first page the last time the feed was read in full.
+     */
+    private String etag;
+
+    /**
+     * When is the next polling allowed?
+     */
+    private volatile long nextCheckTime = -1;
+
+    /*package*/ GHEventStream(GitHub root, String apiUrl) {
+        this.root = root;
+        this.apiUrl = apiUrl;
+    }
+
+    /**
+     * If set to true, {@link #iterator()} will stop iterating once it has reported the new events,
+     * instead of blocking and waiting for more to arrive.
+     */
+    public GHEventStream nonBlocking(boolean v) {
+        this.nonBlocking = v;
+        return this;
+    }
+
+    /**
+     * Only reports the events that came after the given one, such as the last one reported
+     * before a restart. By default, the events already in the feed are reported first.
+     */
+    public GHEventStream after(long eventId) {
+        this.after = eventId;
+        return this;
+    }
+
+    /**
+     * Returns an {@link Iterator} over the new events, which is infinite unless the stream is {@linkplain #nonBlocking(boolean) non-blocking}.
+     */
+    public Iterator<GHEventInfo> iterator() {
+        return new Iterator<GHEventInfo>() {
+            /**
+             * Events fetched but not returned to the caller yet, oldest first.
+             */
+            private final LinkedList<GHEventInfo> events = new LinkedList<GHEventInfo>();
+
+            private boolean polled;
+
+            public boolean hasNext() {
+                return fetch();
+            }
+
+            public GHEventInfo next() {
+                if (!fetch())
+                    throw new NoSuchElementException();
+                return events.removeFirst();
+            }
+
+            private boolean fetch() {
+                try {
+                    while (events.isEmpty()) {
+                        if (nonBlocking && polled)
+                            return false;   // nothing more to report, and we aren't blocking
+                        events.addAll(poll(!nonBlocking));
+                        polled = true;
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new GHException("Failed to poll " + apiUrl, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GHException("Interrupted while waiting to poll " + apiUrl, e);
+                }
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Reads the events that were added since the last poll.
+     *
+     * @param wait
+     *      If true, waits until polling is allowed. Otherwise nothing is returned until then.
+     * @return the new events, oldest first.
+     */
+    private List<GHEventInfo> poll(boolean wait) throws IOException, InterruptedException {
+        // observe the polling interval before making the call
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (nextCheckTime <= now) break;
+            if (!wait)
+                return Collections.emptyList();
+            long waitTime = Math.min(Math.max(nextCheckTime - now, 1000), 60 * 1000);
+            Thread.sleep(waitTime);
+        }
+        return read();
+    }
+
+    private synchronized List<GHEventInfo> read() throws IOException {
+        Requester req = root.retrieve();
+        if (etag != null)
+            req.setHeader("If-None-Match", etag);
+        Iterator<GHEventInfo[]> pages = req.asIterator(apiUrl, GHEventInfo[].class, PAGE_SIZE);
+
+        List<GHEventInfo> fresh = new ArrayList<GHEventInfo>();
+        boolean more = hasNext(pages);
+        nextCheckTime = calcNextCheckTime(req);
+        if (!more)
+            return fresh;   // unmodified
+        String newEtag = req.getResponseHeader("ETag");
+
+        while (more) {
+            boolean seen = false;
+            for (GHEventInfo e : pages.next()) {
+                if (isReported(e.getId()))
+                    seen = true;    // what follows was reported, except for late events on this page
+                else
+                    fresh.add(e);
+            }
+            more = !seen && hasNext(pages);
+        }
+
+        // the feed is newest first
+        Collections.reverse(fresh);
+        for (GHEventInfo e : fresh) {
+            e.wrapUp(root);
+            reported.put(e.getId(), Boolean.TRUE);
+        }
+        etag = newEtag;
+        return fresh;
+    }
+
+    private boolean isReported(long id) {
+        return id <= after || reported.containsKey(id);
+    }
+
+    private static boolean hasNext(Iterator<GHEventInfo[]> pages) throws IOException {
+        try {
+            return pages.hasNext();
+        } catch (GHException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static long calcNextCheckTime(Requester req) {
+        String v = req.getResponseHeader("X-Poll-Interval");
+        if (v==null)    v="60";
+        long seconds = Integer.parseInt(v);
+        return System.currentTimeMillis() + seconds*1000;
+    }
+
+    /**
+     * Ids of the events reported lately, oldest first.
+     */
+    private static final class RecentEvents extends LinkedHashMap<Long, Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > DEDUPLICATION_WINDOW;
+        }
+    }
+
+    private static final int PAGE_SIZE = 100;
+    /**
+     * Number of event ids remembered to skip those already reported. Feeds hold at most 300 events.
+     */
+    private static final int DEDUPLICATION_WINDOW = 1000;
+}
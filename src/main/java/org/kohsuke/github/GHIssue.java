@@ -69,6 +69,7 @@ public class GHIssue extends GHObject implements Reactable{
     protected GHMilestone milestone;
     protected GHUser closed_by;
     protected boolean locked;
+    private String repository_url;
 
     /**
      * @deprecated use {@link GHLabel}
@@ -104,6 +105,13 @@ public class GHIssue extends GHObject implements Reactable{
         return owner;
     }
 
+    /**
+     * API URL of the repository, which is all that search results tell about it.
+     */
+    /*package*/ String getRepositoryUrl() {
+        return repository_url;
+    }
+
     /**
      * The description of this pull request.
      */
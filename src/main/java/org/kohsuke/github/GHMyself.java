@@ -71,6 +71,24 @@ public class GHMyself extends GHUser {
         return Collections.unmodifiableList(Arrays.asList(addresses));
     }
 
+    /**
+     * Lists the e-mail addresses configured for you one page at a time.
+     *
+     * @see #getEmails2()
+     */
+    public PagedIterable<GHEmail> listEmails() {
+        return new PagedIterable<GHEmail>() {
+            public PagedIterator<GHEmail> _iterator(int pageSize) {
+                return new PagedIterator<GHEmail>(root.retrieve().asIterator("/user/emails", GHEmail[].class, pageSize)) {
+                    @Override
+                    protected void wrapUp(GHEmail[] page) {
+                        // no-op
+                    }
+                };
+            }
+        };
+    }
+
     /**
      * Returns the read-only list of all the pulic keys of the current user.
      *
@@ -29,6 +29,9 @@ public abstract class GHObject {
     protected String created_at;
     protected String updated_at;
 
+    // parsed on first access, as sorting by date would otherwise parse the same strings over and over
+    private transient volatile Timestamps.Parsed createdAt, updatedAt;
+
     /*package*/ GHObject() {
     }
 
@@ -52,7 +55,7 @@ public abstract class GHObject {
      */
     @WithBridgeMethods(value=String.class, adapterMethod="createdAtStr")
     public Date getCreatedAt() throws IOException {
-        return GitHub.parseDate(created_at);
+        return Timestamps.Parsed.toDate(createdAt = Timestamps.Parsed.of(created_at, createdAt));
     }
 
     @SuppressFBWarnings(value = "UPM_UNCALLED_PRIVATE_METHOD", justification = "Bridge method of getCreatedAt")
@@ -78,7 +81,7 @@ public abstract class GHObject {
      * When was this resource last updated?
      */
     public Date getUpdatedAt() throws IOException {
-        return GitHub.parseDate(updated_at);
+        return Timestamps.Parsed.toDate(updatedAt = Timestamps.Parsed.of(updated_at, updatedAt));
     }
 
     /**
@@ -6,9 +6,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * @author Kohsuke Kawaguchi
@@ -215,30 +219,133 @@ public class GHOrganization extends GHPerson {
     /**
      * List up repositories that has some open pull requests.
      *
-     * This used to be an efficient method that didn't involve traversing every repository, but now
-     * it doesn't do any optimization.
+     * Every repository is probed for a single open pull request, several repositories at a time
+     * through {@link GitHub#async()}, or one after the other when called from one of its calls.
+     *
+     * @see #getRepositoriesWithOpenPullRequests(boolean)
      */
     public List<GHRepository> getRepositoriesWithOpenPullRequests() throws IOException {
-        List<GHRepository> r = new ArrayList<GHRepository>();
-        for (GHRepository repository : listRepositories(100)) {
-            repository.wrap(root);
-            List<GHPullRequest> pullRequests = repository.getPullRequests(GHIssueState.OPEN);
-            if (pullRequests.size() > 0) {
-                r.add(repository);
+        return getRepositoriesWithOpenPullRequests(false);
+    }
+
+    /**
+     * List up repositories that has some open pull requests.
+     *
+     * @param useSearch
+     *      If true, ask the search API for the open pull requests of the whole organization, which takes a
+     *      request per 100 pull requests instead of one per repository, but counts against the search rate limit.
+     *      Search only sees the first 1000 results, so when there are more, repositories are probed one by one anyway.
+     */
+    public List<GHRepository> getRepositoriesWithOpenPullRequests(boolean useSearch) throws IOException {
+        if (useSearch) {
+            List<GHRepository> r = searchRepositoriesWithOpenPullRequests();
+            if (r != null)
+                return r;
+        }
+
+        AsyncGitHub async = root.async();
+        List<GHRepository> repositories = new ArrayList<GHRepository>();
+        List<Future<Boolean>> probes = new ArrayList<Future<Boolean>>();
+        try {
+            for (final GHRepository repository : listRepositories(100)) {
+                repository.wrap(root);
+                repositories.add(repository);
+                probes.add(async.fork(new Callable<Boolean>() {
+                    public Boolean call() {
+                        return repository.queryPullRequests().state(GHIssueState.OPEN).list()
+                                .withPageSize(1).iterator().hasNext();
+                    }
+                }));
             }
+
+            List<GHRepository> r = new ArrayList<GHRepository>();
+            for (int i = 0; i < probes.size(); i++) {
+                if (AsyncGitHub.await(probes.get(i)))
+                    r.add(repositories.get(i));
+            }
+            return r;
+        } finally {
+            cancel(probes);
+        }
+    }
+
+    /**
+     * @return null if the search could not see all the open pull requests.
+     */
+    private List<GHRepository> searchRepositoriesWithOpenPullRequests() throws IOException {
+        PagedSearchIterable<GHIssue> hits = root.searchIssues().q("is:pr").isOpen().q("org:" + login)
+                .list().withPageSize(100);
+        // the first page tells how many there are, so walk the same iterator instead of fetching it again
+        PagedIterator<GHIssue> itr = hits.iterator();
+        itr.hasNext();
+        if (hits.getTotalCount() > 1000 || hits.isIncomplete())
+            return null;
+
+        Set<String> names = new LinkedHashSet<String>();
+        while (itr.hasNext()) {
+            String url = itr.next().getRepositoryUrl();
+            if (url == null)
+                return null;
+            String[] segments = url.split("/");
+            names.add(segments[segments.length - 2] + '/' + segments[segments.length - 1]);
+        }
+
+        AsyncGitHub async = root.async();
+        List<Future<GHRepository>> repositories = new ArrayList<Future<GHRepository>>();
+        try {
+            for (final String name : names) {
+                repositories.add(async.fork(new Callable<GHRepository>() {
+                    public GHRepository call() throws IOException {
+                        return root.getRepository(name);
+                    }
+                }));
+            }
+            List<GHRepository> r = new ArrayList<GHRepository>();
+            for (Future<GHRepository> f : repositories) {
+                r.add(AsyncGitHub.await(f));
+            }
+            return r;
+        } finally {
+            cancel(repositories);
         }
-        return r;
     }
 
     /**
      * Gets all the open pull requests in this organizataion.
+     *
+     * The pull requests of several repositories are fetched at a time, through {@link GitHub#async()},
+     * or one after the other when called from one of its calls.
      */
     public List<GHPullRequest> getPullRequests() throws IOException {
-        List<GHPullRequest> all = new ArrayList<GHPullRequest>();
-        for (GHRepository r : getRepositoriesWithOpenPullRequests()) {
-            all.addAll(r.getPullRequests(GHIssueState.OPEN));
+        AsyncGitHub async = root.async();
+        List<Future<List<GHPullRequest>>> lists = new ArrayList<Future<List<GHPullRequest>>>();
+        try {
+            for (final GHRepository repository : listRepositories(100)) {
+                repository.wrap(root);
+                lists.add(async.fork(new Callable<List<GHPullRequest>>() {
+                    public List<GHPullRequest> call() throws IOException {
+                        return repository.getPullRequests(GHIssueState.OPEN);
+                    }
+                }));
+            }
+
+            List<GHPullRequest> all = new ArrayList<GHPullRequest>();
+            for (Future<List<GHPullRequest>> f : lists) {
+                all.addAll(AsyncGitHub.await(f));
+            }
+            return all;
+        } finally {
+            cancel(lists);
+        }
+    }
+
+    /**
+     * Stops whatever is left running after a failure.
+     */
+    private static void cancel(List<? extends Future<?>> futures) {
+        for (Future<?> f : futures) {
+            f.cancel(false);
         }
-        return all;
     }
 
     /**
@@ -258,6 +365,15 @@ public class GHOrganization extends GHPerson {
         };
     }
 
+    /**
+     * Follows the events of this organization as they happen.
+     *
+     * @see #listEvents()
+     */
+    public GHEventStream streamEvents() {
+        return new GHEventStream(root, String.format("/orgs/%s/events", login));
+    }
+
     /**
      * Lists up all the repositories using the specified page size.
      *
@@ -269,7 +385,7 @@ public class GHOrganization extends GHPerson {
     public PagedIterable<GHRepository> listRepositories(final int pageSize) {
         return new PagedIterable<GHRepository>() {
             public PagedIterator<GHRepository> _iterator(int pageSize) {
-                return new PagedIterator<GHRepository>(root.retrieve().asIterator("/orgs/" + login + "/repos?per_page=" + pageSize, GHRepository[].class, pageSize)) {
+                return new PagedIterator<GHRepository>(root.retrieve().asIterator("/orgs/" + login + "/repos", GHRepository[].class, pageSize)) {
                     @Override
                     protected void wrapUp(GHRepository[] page) {
                         for (GHRepository c : page)
@@ -277,7 +393,7 @@ public class GHOrganization extends GHPerson {
                     }
                 };
             }
-        };
+        }.withPageSize(pageSize);
     }
 
     /**
@@ -1,14 +1,17 @@
 package org.kohsuke.github;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.logging.Logger;
 
 import static java.lang.String.*;
+import static java.util.logging.Level.INFO;
 
 /**
  * Release in a github repository.
@@ -105,6 +108,24 @@ public class GHRelease extends GHObject {
         return tarball_url;
     }
 
+    /**
+     * Downloads the source code archive of this release as a zip file into the given file, which is replaced.
+     *
+     * @return the size of the file.
+     */
+    public long downloadZipballTo(File target) throws IOException {
+        return new RangeDownload(root, GitHub.parseURL(zipball_url), null, -1).to(target);
+    }
+
+    /**
+     * Downloads the source code archive of this release as a tarball into the given file, which is replaced.
+     *
+     * @return the size of the file.
+     */
+    public long downloadTarballTo(File target) throws IOException {
+        return new RangeDownload(root, GitHub.parseURL(tarball_url), null, -1).to(target);
+    }
+
     GHRelease wrap(GHRepository owner) {
         this.owner = owner;
         this.root = owner.root;
@@ -125,13 +146,70 @@ public class GHRelease extends GHObject {
      * handling of the HTTP requests to github's API.
          */
     public GHAsset uploadAsset(File file, String contentType) throws IOException {
-        Requester builder = new Requester(owner.root);
+        return uploadAsset(file, contentType, null);
+    }
+
+    /**
+     * Uploads the file as an asset of this release, streaming it from the disk.
+     * Transient failures of the upload are retried a few times, reading the file again.
+     * When the server fails after receiving the file, the assets of the release are looked at first,
+     * since the upload may have gone through anyway and sending it again would then be rejected.
+     *
+     * @param progress
+     *      notified as the file is sent, if not null.
+     */
+    public GHAsset uploadAsset(File file, String contentType, ProgressListener progress) throws IOException {
+        for (int failures = 1; ; failures++) {
+            try {
+                return new Requester(owner.root).contentType(contentType)
+                        .with(file)
+                        .progress(progress)
+                        .retries(UPLOAD_RETRIES)
+                        .to(getAssetUploadUrl(file.getName()), GHAsset.class).wrap(this);
+            } catch (HttpException e) {
+                if (e.getResponseCode() < HttpURLConnection.HTTP_INTERNAL_ERROR || failures > UPLOAD_RETRIES)
+                    throw e;
+                GHAsset uploaded = findAsset(file.getName());
+                if (uploaded != null) {
+                    if ("uploaded".equals(uploaded.getState()))
+                        return uploaded;
+                    // what is left of the failed upload would keep the name taken
+                    uploaded.delete();
+                }
+                LOGGER.log(INFO, "Uploading " + file + " failed, trying again (" + failures + "/" + UPLOAD_RETRIES + ")", e);
+            }
+        }
+    }
 
-        String url = format("https://uploads.github.com%s/releases/%d/assets?name=%s",
-                owner.getApiTailUrl(""), getId(), file.getName());
-        return builder.contentType(contentType)
-                .with(new FileInputStream(file))
-                .to(url, GHAsset.class).wrap(this);
+    /**
+     * Finds the asset a file of the given name was uploaded as, taking into account that GitHub replaces
+     * the characters it doesn't allow in asset names by dots.
+     *
+     * @return null if there is none.
+     */
+    private GHAsset findAsset(String fileName) throws IOException {
+        String name = fileName.replaceAll("[^\\w.\\-]", ".");
+        for (GHAsset asset : getAssets()) {
+            if (asset.getName().equals(fileName) || asset.getName().equals(name))
+                return asset;
+        }
+        return null;
+    }
+
+    /**
+     * Expands the {@code upload_url} template GitHub gives for the release, which also points to the right
+     * host for GitHub Enterprise.
+     */
+    private String getAssetUploadUrl(String name) throws IOException {
+        String base = upload_url;
+        if (base == null) {
+            base = format("https://uploads.github.com%s/releases/%d/assets", owner.getApiTailUrl(""), getId());
+        } else {
+            int template = base.indexOf('{');
+            if (template >= 0)
+                base = base.substring(0, template);
+        }
+        return base + "?name=" + URLEncoder.encode(name, "UTF-8");
     }
 
     public List<GHAsset> getAssets() throws IOException {
@@ -160,4 +238,10 @@ public class GHRelease extends GHObject {
     private String getApiTailUrl(String end) {
         return owner.getApiTailUrl(format("releases/%s/%s",id,end));
     }
+
+    /**
+     * How many times an asset upload that failed because of the network or the server is tried again.
+     */
+    private static final int UPLOAD_RETRIES = 3;
+    private static final Logger LOGGER = Logger.getLogger(GHRelease.class.getName());
 }
@@ -26,9 +26,9 @@ package org.kohsuke.github;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.infradna.tool.bridge_method_injector.WithBridgeMethods;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -37,6 +37,7 @@ import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.channels.WritableByteChannel;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,10 +47,13 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import static java.util.Arrays.*;
 import static org.kohsuke.github.Previews.*;
@@ -91,6 +95,11 @@ public class GHRepository extends GHObject {
 
     private GHRepository source, parent;
 
+    /**
+     * Keys this object is stored under in the repository cache of {@link GitHub}.
+     */
+    /*package*/ final transient Set<String> cacheKeys = Collections.synchronizedSet(new HashSet<String>());
+
     public GHDeploymentBuilder createDeployment(String ref) {
         return new GHDeploymentBuilder(this,ref);
     }
@@ -562,6 +571,7 @@ public class GHRepository extends GHObject {
         if (!key.equals("name"))
             requester.with("name", name);   // even when we don't change the name, we need to send it in
         requester.with(key, value).method("PATCH").to(getApiTailUrl(""));
+        root.invalidate(this);
     }
 
     /**
@@ -607,6 +617,7 @@ public class GHRepository extends GHObject {
     public void delete() throws IOException {
         try {
             new Requester(root).method("DELETE").to(getApiTailUrl(""));
+            root.invalidate(this);
         } catch (FileNotFoundException x) {
             throw (FileNotFoundException) new FileNotFoundException("Failed to delete " + getOwnerName() + "/" + name + "; might not exist, or you might need the delete_repo scope in your token: http://stackoverflow.com/a/19327004/12916").initCause(x);
         }
@@ -910,10 +921,90 @@ public class GHRepository extends GHObject {
      *             invalid tree type being requested
      */
     public GHTree getTreeRecursive(String sha, int recursive) throws IOException {
+        GHTree tree = retrieveTreeRecursive(sha, recursive);
+        if (tree.isTruncated() && recursive > 0)
+            tree = getTreeInParts(sha);
+        return tree;
+    }
+
+    /*package*/ GHTree retrieveTreeRecursive(String sha, int recursive) throws IOException {
         String url = String.format("/repos/%s/%s/git/trees/%s?recursive=%d", getOwnerName(), name, sha, recursive);
         return root.retrieve().to(url, GHTree.class).wrap(this);
     }
 
+    /**
+     * Lists the files that differ between two trees, or the trees of two commits, by comparing
+     * the trees themselves rather than asking GitHub to compare the commits.
+     *
+     * <p>
+     * Only the subtrees whose SHA-1 differ are fetched, a level at a time, and trees fetched
+     * by earlier calls are reused, so this is cheap for commits that are close to each other and
+     * isn't limited in the number of files like {@link #getCompare(String, String)}. There is no
+     * rename detection and no patch.
+     *
+     * @param base
+     *      SHA-1 of the tree or commit to compare from.
+     * @param head
+     *      SHA-1 of the tree or commit to compare to.
+     * @return the changed files, sorted by path.
+     * @see GitHubBuilder#withTreeCache(IdentityCache)
+     */
+    public List<GHTreeChange> getTreeChanges(String base, String head) throws IOException {
+        return new TreeDiff(this).compare(base, head);
+    }
+
+    /**
+     * Assembles a recursive tree that is too large for GitHub to return at once.
+     * The subdirectories of its top level are fetched recursively and concurrently
+     * through {@link GitHub#async()}, and those that are still truncated are split further the same way.
+     * When called from a call of {@link GitHub#async()}, the subdirectories are fetched one after the other.
+     */
+    private GHTree getTreeInParts(String sha) throws IOException {
+        AsyncGitHub async = root.async();
+        GHTree top = getTree(sha);
+        List<GHTreeEntry> entries = new ArrayList<GHTreeEntry>();
+        // recursive trees of the subdirectories, by path
+        Map<String, Future<GHTree>> pending = new LinkedHashMap<String, Future<GHTree>>();
+        try {
+            addTreeLevel(top, "", entries, pending, async);
+            while (!pending.isEmpty()) {
+                Iterator<Map.Entry<String, Future<GHTree>>> it = pending.entrySet().iterator();
+                Map.Entry<String, Future<GHTree>> next = it.next();
+                it.remove();
+                GHTree subtree = AsyncGitHub.await(next.getValue());
+                if (subtree.isTruncated()) {
+                    addTreeLevel(getTree(subtree.getSha()), next.getKey() + '/', entries, pending, async);
+                } else {
+                    for (GHTreeEntry e : subtree.getTree()) {
+                        entries.add(e.under(next.getKey() + '/'));
+                    }
+                }
+            }
+        } finally {
+            for (Future<GHTree> f : pending.values()) {
+                f.cancel(false);
+            }
+        }
+        return GHTree.assemble(top, entries);
+    }
+
+    /**
+     * Collects the entries of one level of a tree, and starts fetching its subdirectories recursively.
+     */
+    private void addTreeLevel(GHTree level, String prefix, List<GHTreeEntry> entries,
+                              Map<String, Future<GHTree>> pending, AsyncGitHub async) {
+        for (final GHTreeEntry e : level.getTree()) {
+            entries.add(e.under(prefix));
+            if ("tree".equals(e.getType())) {
+                pending.put(e.getPath(), async.fork(new Callable<GHTree>() {
+                    public GHTree call() throws IOException {
+                        return retrieveTreeRecursive(e.getSha(), 1);
+                    }
+                }));
+            }
+        }
+    }
+
     /**
      * Obtains the metadata &amp; the content of a blob.
      *
@@ -943,6 +1034,28 @@ public class GHRepository extends GHObject {
         return root.retrieve().withHeader("Accept","application/vnd.github.VERSION.raw").asStream(target);
     }
 
+    /**
+     * Streams the content of a blob into the given channel, without holding it in memory.
+     *
+     * @return number of bytes written.
+     * @see #readBlob(String)
+     */
+    public long readBlob(String blobSha, WritableByteChannel target) throws IOException {
+        String tail = getApiTailUrl("git/blobs/" + blobSha);
+        return root.retrieve().withHeader("Accept","application/vnd.github.VERSION.raw").transferTo(tail, target);
+    }
+
+    /**
+     * Streams the content of a blob into the given file, which is replaced.
+     *
+     * @return number of bytes written.
+     * @see #readBlob(String)
+     */
+    public long readBlob(String blobSha, File target) throws IOException {
+        String tail = getApiTailUrl("git/blobs/" + blobSha);
+        return root.retrieve().withHeader("Accept","application/vnd.github.VERSION.raw").transferTo(tail, target);
+    }
+
     /**
      * Gets a commit object in this repository.
      */
@@ -1107,6 +1220,15 @@ public class GHRepository extends GHObject {
         };
     }
 
+    /**
+     * Follows the events of this repository as they happen.
+     *
+     * @see #listEvents()
+     */
+    public GHEventStream streamEvents() {
+        return new GHEventStream(root, getApiTailUrl("events"));
+    }
+
     /**
      * Lists labels in this repository.
      *
@@ -1313,6 +1435,25 @@ public class GHRepository extends GHObject {
         return r;
     }
 
+    /**
+     * Lists branches one page at a time, without holding all of them in memory at once.
+     *
+     * @see #getBranches()
+     */
+    public PagedIterable<GHBranch> listBranches() {
+        return new PagedIterable<GHBranch>() {
+            public PagedIterator<GHBranch> _iterator(int pageSize) {
+                return new PagedIterator<GHBranch>(root.retrieve().withPreview(LOKI).asIterator(getApiTailUrl("branches"), GHBranch[].class, pageSize)) {
+                    @Override
+                    protected void wrapUp(GHBranch[] page) {
+                        for (GHBranch b : page)
+                            b.wrap(GHRepository.this);
+                    }
+                };
+            }
+        };
+    }
+
     public GHBranch getBranch(String name) throws IOException {
         return root.retrieve().withPreview(LOKI).to(getApiTailUrl("branches/"+name),GHBranch.class).wrap(this);
     }
@@ -1413,10 +1554,30 @@ public class GHRepository extends GHObject {
     }
 
     public GHContentUpdateResponse createContent(byte[] contentBytes, String commitMessage, String path, String branch) throws IOException {
+        return createContent(Base64Content.of(contentBytes), commitMessage, path, branch);
+    }
+
+    /**
+     * Creates a file with the content read from the given stream, which is encoded as it is sent
+     * instead of being loaded in memory first. The stream is closed afterwards.
+     */
+    public GHContentUpdateResponse createContent(InputStream content, String commitMessage, String path, String branch) throws IOException {
+        return createContent(Base64Content.of(content), commitMessage, path, branch);
+    }
+
+    /**
+     * Creates a file with the content of the given local file, which is encoded as it is sent
+     * instead of being loaded in memory first.
+     */
+    public GHContentUpdateResponse createContent(File content, String commitMessage, String path, String branch) throws IOException {
+        return createContent(Base64Content.of(content), commitMessage, path, branch);
+    }
+
+    private GHContentUpdateResponse createContent(Base64Content content, String commitMessage, String path, String branch) throws IOException {
         Requester requester = new Requester(root)
             .with("path", path)
             .with("message", commitMessage)
-            .with("content", Base64.encodeBase64String(contentBytes))
+            ._with("content", content)
             .method("PUT");
 
         if (branch != null) {
@@ -27,11 +27,12 @@ public abstract class GHRepositoryTraffic implements TrafficInfo {
 
     public static abstract class DailyInfo implements TrafficInfo {
         private String timestamp;
+        private transient volatile Timestamps.Parsed parsedTimestamp;
         private int count;
         private int uniques;
 
         public Date getTimestamp() {
-            return GitHub.parseDate(timestamp);
+            return Timestamps.Parsed.toDate(parsedTimestamp = Timestamps.Parsed.of(timestamp, parsedTimestamp));
         }
 
         public int getCount() {
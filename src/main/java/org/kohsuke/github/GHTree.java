@@ -1,9 +1,13 @@
 package org.kohsuke.github;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides information for Git Trees
@@ -21,6 +25,11 @@ public class GHTree {
     private String sha, url;
     private GHTreeEntry[] tree;
 
+    /**
+     * Built on the first lookup, since most trees are only ever iterated.
+     */
+    private volatile Index index;
+
     /**
      * The SHA for this trees
      */
@@ -41,11 +50,51 @@ public class GHTree {
      * IOW, find a directory entry by a file name.
      */
     public GHTreeEntry getEntry(String path) {
-        for (GHTreeEntry e : tree) {
-            if (e.getPath().equals(path))
-                return e;
+        return index().byPath.get(path);
+    }
+
+    /**
+     * Lists the entries directly in the given directory of a recursive tree, such as "src/main".
+     *
+     * @param directory
+     *      path of the directory, or "" for the top of the tree.
+     * @return empty if there is no such directory.
+     */
+    public List<GHTreeEntry> getEntries(String directory) {
+        List<GHTreeEntry> entries = index().children.get(directory);
+        return entries == null ? Collections.<GHTreeEntry>emptyList() : Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Lists the entries whose path starts with the given prefix, such as "src/main/" for everything
+     * below that directory, sorted by path.
+     */
+    public List<GHTreeEntry> getEntriesWithPrefix(String prefix) {
+        GHTreeEntry[] sorted = index().sorted;
+        int from = firstAtOrAfter(sorted, prefix);
+        int to = from;
+        while (to < sorted.length && sorted[to].getPath().startsWith(prefix))
+            to++;
+        return Collections.unmodifiableList(Arrays.asList(sorted).subList(from, to));
+    }
+
+    private static int firstAtOrAfter(GHTreeEntry[] sorted, String path) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].getPath().compareTo(path) < 0)
+                low = mid + 1;
+            else
+                high = mid;
         }
-        return null;
+        return low;
+    }
+
+    private Index index() {
+        Index i = index;
+        if (i == null)
+            index = i = new Index(tree);
+        return i;
     }
 
     /**
@@ -72,4 +121,77 @@ public class GHTree {
         return this;
     }
 
+    /**
+     * Creates the complete recursive tree out of the entries collected for a truncated one.
+     *
+     * @param top
+     *      the top level of the tree.
+     * @param entries
+     *      the entries of the whole tree, with their paths from its top.
+     */
+    /* package */static GHTree assemble(GHTree top, List<GHTreeEntry> entries) {
+        GHTree t = new GHTree();
+        t.sha = top.sha;
+        t.url = top.url;
+        t.tree = entries.toArray(new GHTreeEntry[entries.size()]);
+        Arrays.sort(t.tree, GIT_ORDER);
+        return t.wrap(top.repo);
+    }
+
+    /**
+     * Lookup structures over the entries, built in one pass.
+     */
+    private static final class Index {
+        private final Map<String, GHTreeEntry> byPath;
+        private final Map<String, List<GHTreeEntry>> children = new HashMap<String, List<GHTreeEntry>>();
+        private final GHTreeEntry[] sorted;
+
+        Index(GHTreeEntry[] tree) {
+            byPath = new HashMap<String, GHTreeEntry>(tree.length * 4 / 3 + 1);
+            for (GHTreeEntry e : tree) {
+                String path = e.getPath();
+                byPath.put(path, e);
+                int slash = path.lastIndexOf('/');
+                String parent = slash < 0 ? "" : path.substring(0, slash);
+                List<GHTreeEntry> siblings = children.get(parent);
+                if (siblings == null) {
+                    siblings = new ArrayList<GHTreeEntry>();
+                    children.put(parent, siblings);
+                }
+                siblings.add(e);
+            }
+            sorted = tree.clone();
+            Arrays.sort(sorted, BY_PATH);
+        }
+    }
+
+    private static final Comparator<GHTreeEntry> BY_PATH = new Comparator<GHTreeEntry>() {
+        public int compare(GHTreeEntry a, GHTreeEntry b) {
+            return a.getPath().compareTo(b.getPath());
+        }
+    };
+
+    /**
+     * The order of a recursive listing: every directory comes right before its content,
+     * as git sorts a directory as if its name ended with a slash.
+     */
+    private static final Comparator<GHTreeEntry> GIT_ORDER = new Comparator<GHTreeEntry>() {
+        public int compare(GHTreeEntry a, GHTreeEntry b) {
+            for (int i = 0; ; i++) {
+                int ca = charAt(a, i), cb = charAt(b, i);
+                if (ca != cb)
+                    return ca - cb;
+                if (ca < 0)
+                    return 0;
+            }
+        }
+
+        private int charAt(GHTreeEntry e, int i) {
+            String path = e.getPath();
+            if (i < path.length())
+                return path.charAt(i);
+            return i == path.length() && "tree".equals(e.getType()) ? '/' : -1;
+        }
+    };
+
 }
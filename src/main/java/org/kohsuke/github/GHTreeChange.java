@@ -0,0 +1,63 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * A file that differs between two trees.
+ *
+ * @see GHRepository#getTreeChanges(String, String)
+ */
+public class GHTreeChange {
+    /**
+     * How the file changed.
+     */
+    public enum Status {
+        ADDED, REMOVED, MODIFIED
+    }
+
+    private final String path;
+    private final Status status;
+    private final GHTreeEntry baseEntry;
+    private final GHTreeEntry headEntry;
+
+    GHTreeChange(String path, Status status, @CheckForNull GHTreeEntry baseEntry, @CheckForNull GHTreeEntry headEntry) {
+        this.path = path;
+        this.status = status;
+        this.baseEntry = baseEntry;
+        this.headEntry = headEntry;
+    }
+
+    /**
+     * Path of the file from the top of the trees, such as "src/main/Foo.java".
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * The file in the base tree, or null if it was added.
+     * Its own {@linkplain GHTreeEntry#getPath() path} is relative to the subtree that lists it.
+     */
+    @CheckForNull
+    public GHTreeEntry getBaseEntry() {
+        return baseEntry;
+    }
+
+    /**
+     * The file in the head tree, or null if it was removed.
+     * Its own {@linkplain GHTreeEntry#getPath() path} is relative to the subtree that lists it.
+     */
+    @CheckForNull
+    public GHTreeEntry getHeadEntry() {
+        return headEntry;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + path;
+    }
+}
@@ -73,6 +73,17 @@ public class GHTreeEntry {
         return GitHub.parseURL(url);
     }
 
+    /**
+     * Moves this entry of a subtree into the tree that contains it.
+     *
+     * @param prefix
+     *      path of the subtree followed by a slash, or "".
+     */
+    /* package */GHTreeEntry under(String prefix) {
+        path = prefix + path;
+        return this;
+    }
+
     /**
      * If this tree entry represents a file, then return its information.
      * Otherwise null.
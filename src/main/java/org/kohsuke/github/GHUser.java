@@ -179,6 +179,15 @@ public class GHUser extends GHPerson {
         };
     }
 
+    /**
+     * Follows the events performed by this user as they happen.
+     *
+     * @see #listEvents()
+     */
+    public GHEventStream streamEvents() {
+        return new GHEventStream(root, String.format("/users/%s/events", login));
+    }
+
     /**
      * Lists Gists created by this user.
      */
@@ -43,17 +43,20 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.*;
@@ -80,19 +83,57 @@ public class GitHub {
      */
     /*package*/ final String encodedAuthorization;
 
-    private final ConcurrentMap<String,GHUser> users;
-    private final ConcurrentMap<String,GHOrganization> orgs;
+    /**
+     * Tokens to authenticate with instead of {@link #encodedAuthorization}, if any.
+     */
+    /*package*/ final TokenPool tokenPool;
+
+    private final IdentityCache<GHUser> users;
+    private final IdentityCache<GHOrganization> orgs;
+    /**
+     * Repositories by lower-cased full name and by id, if caching them was asked for.
+     */
+    private final IdentityCache<GHRepository> repositories;
+    /**
+     * Trees by repository and SHA-1, which never change.
+     *
+     * @see GHRepository#getTreeChanges(String, String)
+     */
+    /*package*/ final IdentityCache<GHTree> trees;
     // Cache of myself object.
     private GHMyself myself;
     private final String apiUrl;
 
     /*package*/ final RateLimitHandler rateLimitHandler;
     /*package*/ final AbuseLimitHandler abuseLimitHandler;
+    /*package*/ final RateLimitScheduler rateLimitScheduler;
+    /*package*/ final RequestPriority requestPriority;
+
+    /**
+     * Instrumentation of the requests, if any.
+     */
+    /*package*/ final RequestListener requestListener;
+
+    /**
+     * GET requests under way, if identical ones are to share their response.
+     */
+    /*package*/ final InFlightRequests inFlightRequests;
 
     private HttpConnector connector = HttpConnector.DEFAULT;
 
+    /**
+     * Optional storage of GET responses for conditional requests.
+     */
+    private final ResponseCache responseCache;
+
+    /**
+     * Lazily created by {@link #async()}.
+     */
+    private volatile AsyncGitHub async;
+
     private final Object headerRateLimitLock = new Object();
     private GHRateLimit headerRateLimit = null;
+    private GHRateLimit headerSearchRateLimit = null;
     private volatile GHRateLimit rateLimit = null;
 
     /**
@@ -130,8 +171,28 @@ public class GitHub {
      *      User's password. Always used in conjunction with the {@code login} parameter
      * @param connector
      *      HttpConnector to use. Pass null to use default connector.
+     * @param responseCache
+     *      Cache of GET responses to revalidate. Pass null to disable conditional requests.
+     * @param rateLimitScheduler
+     *      Paces requests before they are sent.
+     * @param requestPriority
+     *      Priority given to requests made through this instance by the rate limit scheduler.
+     * @param tokenPool
+     *      Tokens to spread requests over. Pass null to authenticate with the other parameters.
+     * @param requestListener
+     *      Gets told about every request. Pass null to disable instrumentation.
+     * @param userCache
+     *      Where users are interned. Pass null for an unbounded cache.
+     * @param orgCache
+     *      Where organizations are interned. Pass null for an unbounded cache.
+     * @param repositoryCache
+     *      Where repositories are kept. Pass null to always fetch them.
+     * @param treeCache
+     *      Where the trees fetched to compare commits are kept. Pass null for a cache of a thousand softly held trees.
+     * @param coalesceRequests
+     *      Whether identical GET requests made at the same time share a single response.
      */
-    /* package */ GitHub(String apiUrl, String login, String oauthAccessToken, String applicationToken, String password, HttpConnector connector, RateLimitHandler rateLimitHandler, AbuseLimitHandler abuseLimitHandler) throws IOException {
+    /* package */ GitHub(String apiUrl, String login, String oauthAccessToken, String applicationToken, String password, HttpConnector connector, RateLimitHandler rateLimitHandler, AbuseLimitHandler abuseLimitHandler, ResponseCache responseCache, RateLimitScheduler rateLimitScheduler, RequestPriority requestPriority, TokenPool tokenPool, RequestListener requestListener, IdentityCache<GHUser> userCache, IdentityCache<GHOrganization> orgCache, IdentityCache<GHRepository> repositoryCache, IdentityCache<GHTree> treeCache, boolean coalesceRequests) throws IOException {
         if (apiUrl.endsWith("/")) apiUrl = apiUrl.substring(0, apiUrl.length()-1); // normalize
         this.apiUrl = apiUrl;
         if (null != connector) this.connector = connector;
@@ -150,12 +211,21 @@ public class GitHub {
             }
         }
 
-        users = new ConcurrentHashMap<String, GHUser>();
-        orgs = new ConcurrentHashMap<String, GHOrganization>();
+        users = userCache != null ? userCache : new IdentityCache<GHUser>();
+        orgs = orgCache != null ? orgCache : new IdentityCache<GHOrganization>();
+        repositories = repositoryCache;
+        trees = treeCache != null ? treeCache
+                : new IdentityCache<GHTree>(DEFAULT_TREE_CACHE_SIZE, 0, TimeUnit.MILLISECONDS, IdentityCache.Strength.SOFT);
+        inFlightRequests = coalesceRequests ? new InFlightRequests() : null;
         this.rateLimitHandler = rateLimitHandler;
         this.abuseLimitHandler = abuseLimitHandler;
+        this.responseCache = responseCache;
+        this.rateLimitScheduler = rateLimitScheduler;
+        this.requestPriority = requestPriority;
+        this.tokenPool = tokenPool;
+        this.requestListener = requestListener;
 
-        if (login==null && encodedAuthorization!=null && applicationToken == null) {
+        if (login==null && encodedAuthorization!=null && applicationToken == null && tokenPool == null) {
             login = getMyself().getLogin();
         }
         this.login = login;
@@ -265,7 +335,7 @@ public class GitHub {
      * @return {@code true} if operations that require authentication will fail.
      */
     public boolean isAnonymous() {
-        return login==null && encodedAuthorization==null;
+        return login==null && encodedAuthorization==null && tokenPool==null;
     }
 
     /**
@@ -291,6 +361,41 @@ public class GitHub {
         this.connector = connector;
     }
 
+    /**
+     * Gives access to requests that run in the background and report their results through {@link Future}s.
+     *
+     * <p>
+     * The returned object is shared, and runs up to {@value AsyncGitHub#DEFAULT_CONCURRENCY} requests
+     * concurrently on as many daemon threads of its own.
+     */
+    public AsyncGitHub async() {
+        AsyncGitHub a = async;
+        if (a == null) {
+            synchronized (this) {
+                if (async == null)
+                    async = new AsyncGitHub(this,
+                            AsyncGitHub.createDefaultExecutor(AsyncGitHub.DEFAULT_CONCURRENCY),
+                            AsyncGitHub.DEFAULT_CONCURRENCY);
+                a = async;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Like {@link #async()}, but runs the requests on the given executor,
+     * with at most {@code maxConcurrency} of them in flight at any given time.
+     * The executor needs that many threads available to actually reach this concurrency.
+     */
+    public AsyncGitHub async(ExecutorService executor, int maxConcurrency) {
+        return new AsyncGitHub(this, executor, maxConcurrency);
+    }
+
+    @CheckForNull
+    /*package*/ ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     /*package*/ void requireCredential() {
         if (isAnonymous())
             throw new IllegalStateException("This operation requires a credential but none is given to the GitHub constructor");
@@ -330,15 +435,36 @@ public class GitHub {
         }
     }
 
-    /*package*/ void updateRateLimit(@Nonnull GHRateLimit observed) {
+    /*package*/ void updateRateLimit(@Nonnull GHRateLimit observed, RateLimitScheduler.Resource resource) {
+        updateRateLimit(observed, resource, false);
+    }
+
+    /**
+     * @param pooled
+     *      If true, {@code observed} is the combined rate limit of the {@link TokenPool}, which can go up from
+     *      one response to the next as tokens get used for the first time, so it replaces the previous one.
+     */
+    /*package*/ void updateRateLimit(@Nonnull GHRateLimit observed, RateLimitScheduler.Resource resource, boolean pooled) {
         synchronized (headerRateLimitLock) {
-            if (headerRateLimit == null
-                    || headerRateLimit.getResetDate().getTime() < observed.getResetDate().getTime()
-                    || headerRateLimit.remaining > observed.remaining) {
-                headerRateLimit = observed;
-                LOGGER.log(FINE, "Rate limit now: {0}", headerRateLimit);
+            if (resource == RateLimitScheduler.Resource.SEARCH) {
+                if (pooled || isNewer(headerSearchRateLimit, observed)) {
+                    headerSearchRateLimit = observed;
+                    LOGGER.log(FINE, "Search rate limit now: {0}", headerSearchRateLimit);
+                }
+            } else {
+                if (pooled || isNewer(headerRateLimit, observed)) {
+                    headerRateLimit = observed;
+                    LOGGER.log(FINE, "Rate limit now: {0}", headerRateLimit);
+                }
             }
         }
+        rateLimitScheduler.update(observed, resource);
+    }
+
+    private static boolean isNewer(GHRateLimit current, GHRateLimit observed) {
+        return current == null
+                || current.getResetDate().getTime() < observed.getResetDate().getTime()
+                || current.remaining > observed.remaining;
     }
 
     /**
@@ -354,6 +480,19 @@ public class GitHub {
         }
     }
 
+    /**
+     * Returns the most recently observed rate limit of the search API, which is accounted separately,
+     * or {@code null} if no search requests have been made.
+     *
+     * @return the most recently observed search rate limit data or {@code null}.
+     */
+    @CheckForNull
+    public GHRateLimit lastSearchRateLimit() {
+        synchronized (headerRateLimitLock) {
+            return headerSearchRateLimit;
+        }
+    }
+
     /**
      * Gets the current rate limit while trying not to actually make any remote requests unless absolutely necessary.
      *
@@ -411,10 +550,15 @@ public class GitHub {
     public void refreshCache() {
         users.clear();
         orgs.clear();
+        if (repositories != null)
+            repositories.clear();
     }
 
     /**
      * Interns the given {@link GHUser}.
+     *
+     * <p>
+     * If what was interned under the same login went stale, it is replaced by {@code orig}.
      */
     protected GHUser getUser(GHUser orig) {
         GHUser u = users.get(orig.getLogin());
@@ -473,9 +617,91 @@ public class GitHub {
      * @see GHRepository#getName()
      */
     public GHRepository getRepository(String name) throws IOException {
-        String[] tokens = name.split("/");
-        return retrieve().to("/repos/" + tokens[0] + '/' + tokens[1], GHRepository.class).wrap(this);
+        GHRepository r = repositories == null ? null : repositories.get(name.toLowerCase(Locale.ENGLISH));
+        if (r == null) {
+            String[] tokens = name.split("/");
+            r = retrieve().to("/repos/" + tokens[0] + '/' + tokens[1], GHRepository.class).wrap(this);
+            if (repositories != null) {
+                // also under the name it was asked for, in case it was renamed
+                cache(name.toLowerCase(Locale.ENGLISH), r);
+                cache(r);
+            }
+        }
+        return r;
     }
+
+    /**
+     * Gets the repository object from its numeric id, which unlike its name stays the same when
+     * it is renamed or transferred.
+     *
+     * @see GHRepository#getId()
+     */
+    public GHRepository getRepositoryById(long id) throws IOException {
+        GHRepository r = repositories == null ? null : repositories.get(String.valueOf(id));
+        if (r == null) {
+            r = retrieve().to("/repositories/" + id, GHRepository.class).wrap(this);
+            if (repositories != null)
+                cache(r);
+        }
+        return r;
+    }
+
+    private void cache(GHRepository r) {
+        if (r.getFullName() != null)
+            cache(r.getFullName().toLowerCase(Locale.ENGLISH), r);
+        cache(String.valueOf(r.getId()), r);
+    }
+
+    /**
+     * Stores the repository under the given key, which it remembers so that all its keys are dropped together.
+     */
+    private void cache(String key, GHRepository r) {
+        r.cacheKeys.add(key);
+        repositories.put(key, r);
+    }
+
+    /**
+     * Drops the given repository from the {@linkplain GitHubBuilder#withRepositoryCache(IdentityCache) cache},
+     * so that the next {@link #getRepository(String)} fetches it again. Repositories modified through
+     * this library are dropped automatically.
+     *
+     * @param name
+     *      'user/reponame'
+     */
+    public void invalidateRepository(String name) {
+        if (repositories == null)
+            return;
+        GHRepository r = repositories.remove(name.toLowerCase(Locale.ENGLISH));
+        if (r != null)
+            invalidate(r);
+    }
+
+    /**
+     * Drops the repository under every name it was stored, including the old names it was looked up by.
+     * The given object may be another copy than the cached one, which is found by its id and name.
+     */
+    /*package*/ void invalidate(GHRepository r) {
+        if (repositories == null)
+            return;
+        forget(repositories.remove(String.valueOf(r.getId())));
+        if (r.getFullName() != null)
+            forget(repositories.remove(r.getFullName().toLowerCase(Locale.ENGLISH)));
+        forget(r);
+    }
+
+    private void forget(@CheckForNull GHRepository r) {
+        if (r == null)
+            return;
+        List<String> keys;
+        synchronized (r.cacheKeys) {
+            keys = new ArrayList<String>(r.cacheKeys);
+            r.cacheKeys.clear();
+        }
+        for (String key : keys) {
+            repositories.remove(key);
+        }
+    }
+
     /**
      * Returns a list of popular open source licenses
      *
@@ -706,7 +932,7 @@ public class GitHub {
         if (u!=null)    return u;
 
         // if not, remember this new user
-        users.putIfAbsent(user.getLogin(),user);
+        users.put(user.getLogin(),user);
         return user;
     }
 
@@ -889,11 +1115,19 @@ public class GitHub {
 
     /*package*/ static Date parseDate(String timestamp) {
         if (timestamp==null)    return null;
+        return new Date(parseDateMillis(timestamp));
+    }
+
+    /*package*/ static long parseDateMillis(String timestamp) {
+        long t = Timestamps.parse(timestamp);
+        if (t != Timestamps.INVALID)
+            return t;
+        // the lenient parsers accept some variations that the fast one doesn't
         for (String f : TIME_FORMATS) {
             try {
                 SimpleDateFormat df = new SimpleDateFormat(f);
                 df.setTimeZone(TimeZone.getTimeZone("GMT"));
-                return df.parse(timestamp);
+                return df.parse(timestamp).getTime();
             } catch (ParseException e) {
                 // try next
             }
@@ -902,7 +1136,7 @@ public class GitHub {
     }
 
     /*package*/ static String printDate(Date dt) {
-        return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").format(dt);
+        return Timestamps.print(dt.getTime());
     }
 
     /*package*/ static final ObjectMapper MAPPER = new ObjectMapper();
@@ -916,5 +1150,9 @@ public class GitHub {
 
     /* package */ static final String GITHUB_URL = "https://api.github.com";
 
+    /**
+     * Number of trees kept by default for {@link GHRepository#getTreeChanges(String, String)}.
+     */
+    private static final int DEFAULT_TREE_CACHE_SIZE = 1000;
     private static final Logger LOGGER = Logger.getLogger(GitHub.class.getName());
 }
@@ -33,6 +33,16 @@ public class GitHubBuilder {
 
     private RateLimitHandler rateLimitHandler = RateLimitHandler.WAIT;
     private AbuseLimitHandler abuseLimitHandler = AbuseLimitHandler.WAIT;
+    private ResponseCache responseCache;
+    private RateLimitScheduler rateLimitScheduler = RateLimitScheduler.NONE;
+    private RequestPriority requestPriority = RequestPriority.NORMAL;
+    private TokenPool tokenPool;
+    private RequestListener requestListener;
+    private IdentityCache<GHUser> userCache;
+    private IdentityCache<GHOrganization> orgCache;
+    private IdentityCache<GHRepository> repositoryCache;
+    private IdentityCache<GHTree> treeCache;
+    private boolean coalesceRequests;
 
     public GitHubBuilder() {
     }
@@ -183,6 +193,14 @@ public class GitHubBuilder {
         this.applicationToken = applicationToken;
         return this;
     }
+    /**
+     * Spreads requests over several tokens instead of authenticating with a single credential.
+     * Keep a reference to the pool to monitor how much each token is used.
+     */
+    public GitHubBuilder withTokenPool(TokenPool tokenPool) {
+        this.tokenPool = tokenPool;
+        return this;
+    }
     public GitHubBuilder withConnector(HttpConnector connector) {
         this.connector = connector;
         return this;
@@ -196,6 +214,102 @@ public class GitHubBuilder {
         return this;
     }
 
+    /**
+     * Passes every request through the given scheduler before it is sent, so that it can be held back
+     * while the rate limit runs low. Unlike {@link #withRateLimitHandler(RateLimitHandler)}, this acts
+     * before GitHub starts refusing requests.
+     *
+     * @see org.kohsuke.github.extras.PacingRateLimitScheduler
+     */
+    public GitHubBuilder withRateLimitScheduler(RateLimitScheduler scheduler) {
+        this.rateLimitScheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * Priority the {@linkplain #withRateLimitScheduler(RateLimitScheduler) rate limit scheduler}
+     * gives to the requests of the {@link GitHub} being built. Defaults to {@link RequestPriority#NORMAL}.
+     */
+    public GitHubBuilder withRequestPriority(RequestPriority priority) {
+        this.requestPriority = priority;
+        return this;
+    }
+
+    /**
+     * Keeps GET responses in the given cache and revalidates them with conditional requests,
+     * which do not count against the rate limit when nothing has changed.
+     *
+     * @see org.kohsuke.github.extras.InMemoryResponseCache
+     * @see org.kohsuke.github.extras.FileResponseCache
+     */
+    public GitHubBuilder withResponseCache(ResponseCache cache) {
+        this.responseCache = cache;
+        return this;
+    }
+
+    /**
+     * Reports every request to the given listener, for metrics or tracing.
+     *
+     * @see org.kohsuke.github.extras.RequestHistogram
+     */
+    public GitHubBuilder withRequestListener(RequestListener listener) {
+        this.requestListener = listener;
+        return this;
+    }
+
+    /**
+     * Interns users in the given cache, instead of one that grows until {@link GitHub#refreshCache()}.
+     * Keep a reference to the cache to monitor how effective it is.
+     */
+    public GitHubBuilder withUserCache(IdentityCache<GHUser> cache) {
+        this.userCache = cache;
+        return this;
+    }
+
+    /**
+     * Interns organizations in the given cache, instead of one that grows until {@link GitHub#refreshCache()}.
+     */
+    public GitHubBuilder withOrganizationCache(IdentityCache<GHOrganization> cache) {
+        this.orgCache = cache;
+        return this;
+    }
+
+    /**
+     * Serves {@link GitHub#getRepository(String)} and {@link GitHub#getRepositoryById(long)} from the given
+     * cache, instead of fetching the repository every time. Give the cache a time to live, after which
+     * repositories are fetched again, and a {@linkplain #withResponseCache(ResponseCache) response cache}
+     * to make that a conditional request. Each repository takes two entries, one by name and one by id.
+     *
+     * @see GitHub#invalidateRepository(String)
+     */
+    public GitHubBuilder withRepositoryCache(IdentityCache<GHRepository> cache) {
+        this.repositoryCache = cache;
+        return this;
+    }
+
+    /**
+     * Keeps the trees fetched by {@link GHRepository#getTreeChanges(String, String)} in the given cache,
+     * instead of the default one of a thousand softly held trees. Trees never change, so the cache
+     * needs no time to live.
+     */
+    public GitHubBuilder withTreeCache(IdentityCache<GHTree> cache) {
+        this.treeCache = cache;
+        return this;
+    }
+
+    /**
+     * Sends identical GET requests made at the same time, for example by several threads looking up the same
+     * repository, only once. The other callers wait for that response and each get their own copy of it,
+     * so they don't count against the rate limit. A 304 replayed from the {@linkplain #withResponseCache(ResponseCache)
+     * response cache} is shared the same way. If the server refuses the request with a client error such as 404,
+     * every caller fails with it; if it fails otherwise, such as with a server error, the callers that were waiting
+     * send it on their own.
+     */
+    public GitHubBuilder withRequestCoalescing(boolean coalesce) {
+        this.coalesceRequests = coalesce;
+        return this;
+    }
+
     /**
      * Configures {@linkplain #withConnector(HttpConnector) connector}
      * that uses HTTP library in JRE but use a specific proxy, instead of
@@ -210,6 +324,6 @@ public class GitHubBuilder {
     }
 
     public GitHub build() throws IOException {
-        return new GitHub(endpoint, user, oauthToken, applicationToken, password, connector, rateLimitHandler, abuseLimitHandler);
+        return new GitHub(endpoint, user, oauthToken, applicationToken, password, connector, rateLimitHandler, abuseLimitHandler, responseCache, rateLimitScheduler, requestPriority, tokenPool, requestListener, userCache, orgCache, repositoryCache, treeCache, coalesceRequests);
     }
 }
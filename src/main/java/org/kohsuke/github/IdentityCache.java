@@ -0,0 +1,316 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link GHUser}s, {@link GHOrganization}s or {@link GHRepository}s a {@link GitHub} has seen,
+ * so that the same name maps to the same object and isn't fetched again.
+ *
+ * <p>
+ * By default the cache is unbounded and holds on to everything until {@link GitHub#refreshCache()}.
+ * It can be given a maximum size, beyond which the least recently used entries are evicted,
+ * a time to live, after which an entry is considered stale and fetched again (as a conditional request
+ * when a {@link ResponseCache} is configured), and it can hold its values through soft or weak references
+ * so that the garbage collector is free to reclaim them.
+ *
+ * <p>
+ * An unbounded cache of strongly held values is a plain concurrent map, which doesn't make lookups wait on
+ * each other. Bounds and references are enforced under a lock, as entries are kept in the order they were used.
+ *
+ * <p>
+ * Keep a reference to the cache to monitor how effective it is.
+ *
+ * @see GitHubBuilder#withUserCache(IdentityCache)
+ * @see GitHubBuilder#withOrganizationCache(IdentityCache)
+ * @see GitHubBuilder#withRepositoryCache(IdentityCache)
+ */
+public class IdentityCache<V> {
+    /**
+     * How the cache refers to its values.
+     */
+    public enum Strength {
+        /**
+         * Values stay until they are evicted or expire.
+         */
+        STRONG,
+        /**
+         * Values can be reclaimed when the heap runs low.
+         */
+        SOFT,
+        /**
+         * Values can be reclaimed as soon as nothing else refers to them.
+         */
+        WEAK
+    }
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final Strength strength;
+
+    /**
+     * Holds the values when there are neither bounds nor references to take care of, null otherwise.
+     */
+    private final ConcurrentMap<String, V> unbounded;
+
+    /**
+     * Holds the values otherwise, in the order they were used. Guarded by this.
+     */
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true);
+    private final ReferenceQueue<V> collected = new ReferenceQueue<V>();
+
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(),
+            expirations = new AtomicLong(), evictions = new AtomicLong();
+
+    /**
+     * Creates an unbounded cache, whose entries never expire.
+     */
+    public IdentityCache() {
+        this(Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS, Strength.STRONG);
+    }
+
+    /**
+     * @param maximumSize
+     *      Number of entries beyond which the least recently used ones are evicted.
+     * @param timeToLive
+     *      How long an entry is served before it is fetched again. 0 to keep entries until they are evicted.
+     * @param strength
+     *      How values are held.
+     */
+    public IdentityCache(int maximumSize, long timeToLive, TimeUnit unit, Strength strength) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        if (timeToLive < 0)
+            throw new IllegalArgumentException("timeToLive must not be negative: " + timeToLive);
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toMillis(timeToLive);
+        this.strength = strength;
+        this.unbounded = maximumSize == Integer.MAX_VALUE && timeToLive == 0 && strength == Strength.STRONG
+                ? new ConcurrentHashMap<String, V>() : null;
+    }
+
+    /*package*/ V get(String key) {
+        return get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * @return null if nothing is cached for the key, or if what is cached went stale.
+     */
+    @CheckForNull
+    /*package*/ V get(String key, long now) {
+        if (unbounded != null) {
+            V v = unbounded.get(key);
+            (v == null ? misses : hits).incrementAndGet();
+            return v;
+        }
+        synchronized (this) {
+            purge();
+            Entry<V> e = entries.get(key);
+            V v = e == null ? null : e.get();
+            if (v == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (e.expiresAt <= now) {
+                expirations.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return v;
+        }
+    }
+
+    /*package*/ void put(String key, V value) {
+        put(key, value, System.currentTimeMillis());
+    }
+
+    /*package*/ void put(String key, V value, long now) {
+        if (unbounded != null) {
+            unbounded.put(key, value);
+            return;
+        }
+        synchronized (this) {
+            purge();
+            long expiresAt = timeToLive == 0 ? Long.MAX_VALUE : now + timeToLive;
+            Entry<V> old = entries.put(key, new Entry<V>(key, value, expiresAt, strength, collected));
+            if (old != null)
+                old.clear();
+
+            for (Iterator<Entry<V>> itr = entries.values().iterator(); entries.size() > maximumSize && itr.hasNext();) {
+                itr.next().clear();
+                itr.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return what was cached for the key, if anything.
+     */
+    @CheckForNull
+    /*package*/ V remove(String key) {
+        if (unbounded != null)
+            return unbounded.remove(key);
+        synchronized (this) {
+            purge();
+            Entry<V> e = entries.remove(key);
+            if (e == null)
+                return null;
+            V v = e.get();
+            e.clear();
+            return v;
+        }
+    }
+
+    /**
+     * Drops everything.
+     */
+    public void clear() {
+        if (unbounded != null) {
+            unbounded.clear();
+            return;
+        }
+        synchronized (this) {
+            for (Entry<V> e : entries.values()) {
+                e.clear();
+            }
+            entries.clear();
+            purge();
+        }
+    }
+
+    /**
+     * Removes the entries whose value was reclaimed by the garbage collector.
+     */
+    private void purge() {
+        Reference<? extends V> r;
+        while ((r = collected.poll()) != null) {
+            String key = ((Ref) r).key();
+            Entry<V> e = entries.get(key);
+            if (e != null && e.value == r) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Number of entries currently held, including stale ones and those whose value is about to be reclaimed.
+     */
+    public int size() {
+        if (unbounded != null)
+            return unbounded.size();
+        synchronized (this) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups that found nothing, and so were fetched or taken from the payload at hand.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of lookups that found a stale entry, which was then fetched again.
+     */
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    /**
+     * Number of entries dropped to stay within the maximum size, or because the garbage collector
+     * reclaimed their value.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "IdentityCache[size=" + size() + ", hits=" + hits + ", misses=" + misses
+                + ", expirations=" + expirations + ", evictions=" + evictions + "]";
+    }
+
+    private static final class Entry<V> {
+        /**
+         * Either the value itself or a {@link Ref} to it.
+         */
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(String key, V value, long expiresAt, Strength strength, ReferenceQueue<V> queue) {
+            switch (strength) {
+            case SOFT:
+                this.value = new SoftRef<V>(key, value, queue);
+                break;
+            case WEAK:
+                this.value = new WeakRef<V>(key, value, queue);
+                break;
+            default:
+                this.value = value;
+            }
+            this.expiresAt = expiresAt;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get() {
+            return value instanceof Reference ? ((Reference<V>) value).get() : (V) value;
+        }
+
+        /**
+         * Keeps {@link #purge()} from counting an entry that's already gone.
+         */
+        void clear() {
+            if (value instanceof Reference)
+                ((Reference<?>) value).clear();
+        }
+    }
+
+    private interface Ref {
+        String key();
+    }
+
+    private static final class SoftRef<V> extends SoftReference<V> implements Ref {
+        private final String key;
+
+        SoftRef(String key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private static final class WeakRef<V> extends WeakReference<V> implements Ref {
+        private final String key;
+
+        WeakRef(String key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+}
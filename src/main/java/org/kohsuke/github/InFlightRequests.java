@@ -0,0 +1,225 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * GET requests that are under way, so that identical requests made at the same time can wait for
+ * the response to the first one instead of being sent as well.
+ *
+ * <p>
+ * Only the body is shared: every caller deserializes its own instance from it. A request that the server
+ * refused, such as one answered with 404, fails the same way for every caller.
+ *
+ * @see GitHubBuilder#withRequestCoalescing(boolean)
+ */
+/*package*/ final class InFlightRequests {
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+
+    /**
+     * Joins the request under way for the given key, or starts one if there is none.
+     * A call that {@linkplain Call#isLeader() leads} must be {@linkplain Call#complete(Response) completed}
+     * or {@linkplain Call#fail(IOException) failed}.
+     */
+    Call join(String key) {
+        Flight flight = new Flight(key);
+        Flight existing = flights.putIfAbsent(key, flight);
+        return existing != null ? new Call(existing, false) : new Call(flight, true);
+    }
+
+    /*package*/ int size() {
+        return flights.size();
+    }
+
+    /**
+     * One caller's part in a request.
+     */
+    static final class Call {
+        private final Flight flight;
+        private final boolean leader;
+
+        private Call(Flight flight, boolean leader) {
+            this.flight = flight;
+            this.leader = leader;
+        }
+
+        /**
+         * True for the caller that actually sends the request, false for those who wait for it.
+         */
+        boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * Hands the response over to the callers waiting for it. Only the first call has any effect.
+         *
+         * @param response
+         *      null if the request failed in a way that may not happen again, such as a server error,
+         *      in which case the callers waiting for it send it on their own.
+         */
+        void complete(@CheckForNull Response response) {
+            flight.complete(response, null);
+        }
+
+        /**
+         * Hands the failure of the request over to the callers waiting for it, as the server would answer them
+         * the same way. Only the first call has any effect.
+         */
+        void fail(IOException failure) {
+            flight.complete(null, failure);
+        }
+
+        /**
+         * @return null if the request failed in a way that may not happen again.
+         * @throws IOException
+         *      the failure the request was {@linkplain #fail(IOException) failed} with.
+         */
+        @CheckForNull
+        Response await() throws IOException {
+            return flight.await();
+        }
+    }
+
+    private final class Flight {
+        private final String key;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Response response;
+        private volatile IOException failure;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized void complete(@CheckForNull Response response, @CheckForNull IOException failure) {
+            if (done.getCount() == 0)
+                return;
+            flights.remove(key, this);
+            this.response = response;
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @CheckForNull
+        Response await() throws IOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+            }
+            if (failure != null)
+                throw copyOf(failure);
+            return response;
+        }
+    }
+
+    /**
+     * A new exception of the same kind, so that every caller gets its own stack trace.
+     */
+    private static IOException copyOf(IOException e) {
+        if (e instanceof HttpException) {
+            HttpException http = (HttpException) e;
+            return new HttpException(http.getMessage(), http.getResponseCode(), http.getResponseMessage(), http.getUrl(), e);
+        }
+        if (e instanceof GHFileNotFoundException) {
+            GHFileNotFoundException copy = new GHFileNotFoundException(e.getMessage());
+            copy.responseHeaderFields = ((GHFileNotFoundException) e).getResponseHeaderFields();
+            return (IOException) copy.initCause(e);
+        }
+        if (e instanceof FileNotFoundException)
+            return (IOException) new FileNotFoundException(e.getMessage()).initCause(e);
+        return new IOException(e.getMessage(), e);
+    }
+
+    /**
+     * A successful response, with its body already decoded. A 304 answered from the
+     * {@link ResponseCache} is shared as the 200 it stands for.
+     */
+    static final class Response {
+        private final URL url;
+        private final String message;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        /**
+         * @param link
+         *      the pagination "Link" header stored along with a cached body, if the response itself has none.
+         */
+        Response(HttpURLConnection uc, byte[] body, @CheckForNull String link) throws IOException {
+            this.url = uc.getURL();
+            this.message = uc.getResponseMessage();
+            Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+            for (Map.Entry<String, List<String>> e : uc.getHeaderFields().entrySet()) {
+                // the body is replayed as it was after decoding
+                if (!"Content-Encoding".equalsIgnoreCase(e.getKey()) && !"Content-Length".equalsIgnoreCase(e.getKey()))
+                    headers.put(e.getKey(), e.getValue());
+            }
+            if (link != null && uc.getHeaderField("Link") == null)
+                headers.put("Link", Collections.singletonList(link));
+            this.headers = Collections.unmodifiableMap(headers);
+            this.body = body;
+        }
+
+        /**
+         * A connection that answers with this response, without any I/O.
+         */
+        HttpURLConnection replay() {
+            return new HttpURLConnection(url) {
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public void disconnect() {
+                }
+
+                @Override
+                public boolean usingProxy() {
+                    return false;
+                }
+
+                @Override
+                public int getResponseCode() {
+                    return HTTP_OK;
+                }
+
+                @Override
+                public String getResponseMessage() {
+                    return message;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(body);
+                }
+
+                @Override
+                public String getHeaderField(String name) {
+                    for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                        if (name.equalsIgnoreCase(e.getKey()) && !e.getValue().isEmpty())
+                            return e.getValue().get(e.getValue().size() - 1);
+                    }
+                    return null;
+                }
+
+                @Override
+                public Map<String, List<String>> getHeaderFields() {
+                    return headers;
+                }
+            };
+        }
+    }
+}
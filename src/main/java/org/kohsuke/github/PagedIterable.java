@@ -16,6 +16,12 @@ public abstract class PagedIterable<T> implements Iterable<T> {
      */
     private int size = 0;
 
+    /**
+     * Number of pages to read ahead. 0 disables read-ahead.
+     */
+    private int prefetch = 0;
+    private boolean parallel;
+
     /**
      * Sets the pagination size.
      *
@@ -27,8 +33,43 @@ public abstract class PagedIterable<T> implements Iterable<T> {
         return this;
     }
 
+    /**
+     * Retrieves up to {@code depth} pages in the background while the caller is still
+     * processing the current one, so that walking a long collection does not pay
+     * one full round trip per page.
+     *
+     * <p>
+     * Pages are still requested one after the other, following the pagination links.
+     * Set to 0 to turn read-ahead off, which is the default.
+     */
+    public PagedIterable<T> withPrefetch(int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("depth must not be negative: " + depth);
+        this.prefetch = depth;
+        this.parallel = false;
+        return this;
+    }
+
+    /**
+     * Like {@link #withPrefetch(int)}, but when GitHub tells how many pages there are,
+     * retrieves up to {@code depth} of them concurrently. Items are still reported in order.
+     *
+     * <p>
+     * Since pages are requested by number, items may be skipped or repeated if the collection
+     * changes while it is being walked. Collections that are not paginated by page number
+     * fall back to {@link #withPrefetch(int)}.
+     */
+    public PagedIterable<T> withParallelPrefetch(int depth) {
+        withPrefetch(depth);
+        this.parallel = depth > 0;
+        return this;
+    }
+
     public final PagedIterator<T> iterator() {
-        return _iterator(size);
+        PagedIterator<T> i = _iterator(size);
+        if (prefetch > 0)
+            i.prefetch(prefetch, parallel);
+        return i;
     }
 
     public abstract PagedIterator<T> _iterator(int pageSize);
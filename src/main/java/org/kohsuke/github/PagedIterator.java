@@ -14,7 +14,7 @@ import java.util.NoSuchElementException;
  * @author Kohsuke Kawaguchi
  */
 public abstract class PagedIterator<T> implements Iterator<T> {
-    private final Iterator<T[]> base;
+    private Iterator<T[]> base;
 
     /**
      * Current batch that we retrieved but haven't returned to the caller.
@@ -28,6 +28,19 @@ public abstract class PagedIterator<T> implements Iterator<T> {
 
     protected abstract void wrapUp(T[] page);
 
+    /**
+     * Starts reading pages ahead of the caller. Must be called before the iteration starts.
+     *
+     * @param parallel
+     *      If true, retrieve pages concurrently when the collection allows it.
+     */
+    /*package*/ void prefetch(int depth, boolean parallel) {
+        if (parallel && base instanceof Requester.PagingIterator)
+            base = ((Requester.PagingIterator<T[]>) base).inParallel(depth);
+        else
+            base = new PrefetchingIterator<T[]>(base, depth);
+    }
+
     public boolean hasNext() {
         fetch();
         return current!=null;
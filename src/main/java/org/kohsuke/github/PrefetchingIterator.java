@@ -0,0 +1,119 @@
+package org.kohsuke.github;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads pages ahead of the consumer on a background thread.
+ *
+ * <p>
+ * Pages are still retrieved one after the other, since each one tells where the next one is,
+ * but the round trip for page N+1 overlaps with the caller processing page N.
+ * No more than {@code depth} pages are buffered, and the background thread goes away
+ * as soon as the buffer is full, so an abandoned iterator does not pin a thread.
+ *
+ * @see PagedIterable#withPrefetch(int)
+ */
+class PrefetchingIterator<T> implements Iterator<T> {
+    private final Iterator<T> base;
+    private final int depth;
+
+    // all guarded by this
+    private final LinkedList<T> buffer = new LinkedList<T>();
+    private boolean running;
+    private boolean done;
+    private RuntimeException failure;
+
+    PrefetchingIterator(Iterator<T> base, int depth) {
+        if (depth <= 0)
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+        this.base = base;
+        this.depth = depth;
+    }
+
+    public synchronized boolean hasNext() {
+        startFilling();
+        while (buffer.isEmpty() && !done) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GHException("Interrupted while waiting for the next page", e);
+            }
+        }
+        if (buffer.isEmpty() && failure != null)
+            throw failure;
+        return !buffer.isEmpty();
+    }
+
+    public synchronized T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        T page = buffer.removeFirst();
+        startFilling();
+        return page;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void startFilling() {
+        if (!running && !done && buffer.size() < depth) {
+            running = true;
+            EXECUTOR.execute(new Runnable() {
+                public void run() {
+                    fill();
+                }
+            });
+        }
+    }
+
+    private void fill() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (buffer.size() >= depth) {
+                        running = false;
+                        return;
+                    }
+                }
+                // talk to GitHub without holding the lock, so that the consumer can keep reading
+                T page = base.hasNext() ? base.next() : null;
+                synchronized (this) {
+                    if (page == null) {
+                        done = true;
+                        running = false;
+                        return;
+                    }
+                    buffer.add(page);
+                    notifyAll();
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                failure = e;
+                done = true;
+                running = false;
+            }
+        } finally {
+            synchronized (this) {
+                if (running) {// died of an Error
+                    running = false;
+                    done = true;
+                    failure = new GHException("Failed to retrieve the next page");
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Threads doing the read-ahead, shared by all the iterators.
+     */
+    /*package*/ static final ExecutorService EXECUTOR =
+            Executors.newCachedThreadPool(new DaemonThreadFactory("github-api prefetch"));
+}
@@ -0,0 +1,21 @@
+package org.kohsuke.github;
+
+/**
+ * Receives progress notifications while a large body is transferred.
+ *
+ * <p>
+ * Notifications are made from the thread doing the transfer, so implementations should return quickly.
+ *
+ * @see GHRelease#uploadAsset(java.io.File, String, ProgressListener)
+ */
+public interface ProgressListener {
+    /**
+     * Called each time another chunk has been transferred.
+     *
+     * @param transferred
+     *      bytes transferred so far. Starts again from 0 when a failed transfer is retried.
+     * @param total
+     *      bytes to transfer in all, or -1 if that isn't known.
+     */
+    void onProgress(long transferred, long total);
+}
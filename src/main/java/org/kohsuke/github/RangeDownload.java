@@ -0,0 +1,367 @@
+package org.kohsuke.github;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads a file in byte ranges fetched concurrently, when the server supports them.
+ *
+ * <p>
+ * The ranges are written in place into {@code <target>.part}, pre-allocated to the full size,
+ * and the ranges that are complete are recorded in {@code <target>.part.ranges}. If the download
+ * fails, downloading to the same target again only fetches the missing ranges, as long as the
+ * server still reports the same size and validator. Once every range is there and the size checks
+ * out, the part file is renamed to the target.
+ *
+ * <p>
+ * Servers that don't answer range requests are read in a single stream instead.
+ *
+ * @see GHAsset#downloadTo(File)
+ * @see GHRelease#downloadZipballTo(File)
+ */
+/*package*/ final class RangeDownload {
+    private final GitHub root;
+    private final URL url;
+    private final String accept;
+    private final long expectedSize;
+    private final long rangeSize;
+    private final int parallelism;
+
+    /**
+     * @param accept
+     *      media type to ask for, or null.
+     * @param expectedSize
+     *      size the content must have, or -1 if it isn't known in advance.
+     */
+    RangeDownload(GitHub root, URL url, @CheckForNull String accept, long expectedSize) {
+        this(root, url, accept, expectedSize, RANGE_SIZE, PARALLELISM);
+    }
+
+    /*package*/ RangeDownload(GitHub root, URL url, @CheckForNull String accept, long expectedSize, long rangeSize, int parallelism) {
+        this.root = root;
+        this.url = url;
+        this.accept = accept;
+        this.expectedSize = expectedSize;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Downloads into the given file, which is replaced.
+     *
+     * @return the size of the file.
+     */
+    long to(File target) throws IOException {
+        File part = new File(target.getPath() + ".part");
+        File state = new File(target.getPath() + ".part.ranges");
+
+        HttpURLConnection probe = open(url, "bytes=0-" + (rangeSize - 1), null);
+        long total;
+        try {
+            int code = probe.getResponseCode();
+            if (code == HttpURLConnection.HTTP_OK) {
+                total = stream(probe, part);
+                FileUtils.deleteQuietly(state);
+            } else if (code == Requester.HTTP_RANGE_NOT_SATISFIABLE && "bytes */0".equals(probe.getHeaderField("Content-Range"))) {
+                // empty content has no byte to ask for
+                IOUtils.closeQuietly(probe.getErrorStream());
+                checkSize(0);
+                FileUtils.writeByteArrayToFile(part, new byte[0]);
+                FileUtils.deleteQuietly(state);
+                total = 0;
+            } else {
+                total = parseTotal(probe);
+                checkSize(total);
+                fetchRanges(probe, part, state, total);
+            }
+        } finally {
+            probe.disconnect();
+        }
+
+        if (part.length() != total)
+            throw new IOException("Downloaded " + part.length() + " bytes from " + url + " but expected " + total);
+        if (target.exists() && !target.delete())
+            throw new IOException("Unable to replace " + target);
+        if (!part.renameTo(target))
+            throw new IOException("Unable to rename " + part + " to " + target);
+        FileUtils.deleteQuietly(state);
+        return total;
+    }
+
+    /**
+     * Reads a response that covers the whole content.
+     */
+    private long stream(HttpURLConnection uc, File part) throws IOException {
+        long length = contentLength(uc);
+        if (length >= 0)
+            checkSize(length);
+        FileChannel out = new FileOutputStream(part).getChannel();
+        try {
+            long written = copy(uc.getInputStream(), out, 0);
+            if (length >= 0 && written != length)
+                throw new IOException("Received " + written + " bytes from " + uc.getURL() + " but expected " + length);
+            checkSize(written);
+            return written;
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Fetches the ranges still missing, the first of which may come with the probe.
+     */
+    private void fetchRanges(final HttpURLConnection probe, File part, File state, long total) throws IOException {
+        final URL location = probe.getURL();
+        final String validator = validator(probe);
+        final int ranges = (int) ((total + rangeSize - 1) / rangeSize);
+
+        Set<Integer> done = resume(part, state, total, validator);
+        if (done == null) {
+            done = new HashSet<Integer>();
+            RandomAccessFile f = new RandomAccessFile(part, "rw");
+            try {
+                f.setLength(total);
+            } finally {
+                f.close();
+            }
+            writeState(state, total, validator);
+        }
+
+        final Writer log = new OutputStreamWriter(new FileOutputStream(state, true), "UTF-8");
+        final FileChannel out = new RandomAccessFile(part, "rw").getChannel();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("github-api download"));
+        try {
+            List<Future<?>> pending = new ArrayList<Future<?>>();
+            for (int i = 1; i < ranges; i++) {
+                if (done.contains(i))
+                    continue;
+                final int range = i;
+                pending.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        HttpURLConnection uc = open(location, "bytes=" + start(range) + "-" + (end(range, total) - 1), validator);
+                        try {
+                            if (uc.getResponseCode() != HttpURLConnection.HTTP_PARTIAL)
+                                throw new IOException("Expected a partial response for range " + range + " of " + location
+                                        + " but got " + uc.getResponseCode() + "; the content has probably changed");
+                            receive(uc, out, range, total, log);
+                        } finally {
+                            uc.disconnect();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            if (!done.contains(0))
+                receive(probe, out, 0, total, log);
+
+            for (Future<?> f : pending) {
+                AsyncGitHub.await(f);
+            }
+        } finally {
+            executor.shutdownNow();
+            out.close();
+            log.close();
+        }
+    }
+
+    /**
+     * Writes the body of a range response at the position of the range, then records the range as done.
+     */
+    private void receive(HttpURLConnection uc, FileChannel out, int range, long total, Writer log) throws IOException {
+        long written = copy(uc.getInputStream(), out, start(range));
+        long expected = end(range, total) - start(range);
+        if (written != expected)
+            throw new IOException("Received " + written + " bytes for range " + range + " of " + uc.getURL() + " but expected " + expected);
+        synchronized (log) {
+            log.write(range + "\n");
+            log.flush();
+        }
+    }
+
+    private long start(int range) {
+        return range * rangeSize;
+    }
+
+    private long end(int range, long total) {
+        return Math.min(total, (range + 1) * rangeSize);
+    }
+
+    /**
+     * Writes the stream into the channel from the given position, with positional writes so that
+     * several ranges can be written at once.
+     */
+    private static long copy(InputStream in, FileChannel out, long position) throws IOException {
+        ReadableByteChannel src = Channels.newChannel(in);
+        ByteBuffer buf = BufferPool.acquire();
+        try {
+            long written = 0;
+            while (src.read(buf) >= 0) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    written += out.write(buf, position + written);
+                }
+                buf.clear();
+            }
+            return written;
+        } finally {
+            BufferPool.release(buf);
+            src.close();
+        }
+    }
+
+    /**
+     * Reads which ranges of an earlier attempt are already there.
+     *
+     * @return null if there is nothing to resume from.
+     */
+    @CheckForNull
+    private static Set<Integer> resume(File part, File state, long total, String validator) throws IOException {
+        if (!part.exists() || !state.exists() || part.length() != total)
+            return null;
+        BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(state), "UTF-8"));
+        try {
+            if (!String.valueOf(total).equals(r.readLine()) || !validator.equals(r.readLine()))
+                return null;
+            Set<Integer> done = new HashSet<Integer>();
+            String line;
+            while ((line = r.readLine()) != null) {
+                try {
+                    done.add(Integer.valueOf(line.trim()));
+                } catch (NumberFormatException e) {
+                    // a line cut short by a crash
+                }
+            }
+            return done;
+        } finally {
+            r.close();
+        }
+    }
+
+    private static void writeState(File state, long total, String validator) throws IOException {
+        Writer w = new OutputStreamWriter(new FileOutputStream(state), "UTF-8");
+        try {
+            w.write(total + "\n" + validator + "\n");
+        } finally {
+            w.close();
+        }
+    }
+
+    /**
+     * What identifies this version of the content, so that ranges of different versions don't get mixed.
+     */
+    private static String validator(HttpURLConnection uc) {
+        String etag = uc.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/"))
+            return etag;
+        String lastModified = uc.getHeaderField("Last-Modified");
+        return lastModified != null ? lastModified : "";
+    }
+
+    private long parseTotal(HttpURLConnection uc) throws IOException {
+        int code = uc.getResponseCode();
+        if (code != HttpURLConnection.HTTP_PARTIAL) {
+            InputStream es = code >= HttpURLConnection.HTTP_BAD_REQUEST ? uc.getErrorStream() : null;
+            String error = es != null ? IOUtils.toString(es, "UTF-8") : null;
+            IOUtils.closeQuietly(es);
+            throw new HttpException(error, code, uc.getResponseMessage(), uc.getURL().toString());
+        }
+        String range = uc.getHeaderField("Content-Range");
+        Matcher m = range == null ? null : CONTENT_RANGE.matcher(range);
+        if (m == null || !m.matches())
+            throw new IOException("Unexpected Content-Range from " + uc.getURL() + ": " + range);
+        return Long.parseLong(m.group(1));
+    }
+
+    private void checkSize(long size) throws IOException {
+        if (expectedSize >= 0 && size != expectedSize)
+            throw new IOException(url + " has " + size + " bytes but " + expectedSize + " were expected");
+    }
+
+    private static long contentLength(HttpURLConnection uc) {
+        String length = uc.getHeaderField("Content-Length");
+        try {
+            return length == null ? -1 : Long.parseLong(length);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Opens the URL, following redirects by hand so that the credential only goes to the API host,
+     * and not to the storage the content is usually redirected to. Requests to the API host go through
+     * {@link Requester}, so that they count against the rate limit like any other; only the storage is
+     * talked to directly.
+     *
+     * @param ifRange
+     *      validator the range is only to be sent for, or null.
+     */
+    private HttpURLConnection open(URL url, String range, @CheckForNull String ifRange) throws IOException {
+        String apiHost = root.getApiURL("/").getHost();
+        for (int i = 0; i <= MAX_REDIRECTS; i++) {
+            HttpURLConnection uc;
+            if (url.getHost().equalsIgnoreCase(apiHost)) {
+                Requester requester = root.retrieve().withHeader("Range", range);
+                if (accept != null)
+                    requester.withHeader("Accept", accept);
+                if (ifRange != null && ifRange.length() > 0)
+                    requester.withHeader("If-Range", ifRange);
+                uc = requester.asConnection(url.toString());
+            } else {
+                uc = root.getConnector().connect(url);
+                uc.setInstanceFollowRedirects(false);
+                if (accept != null)
+                    uc.setRequestProperty("Accept", accept);
+                uc.setRequestProperty("Range", range);
+                if (ifRange != null && ifRange.length() > 0)
+                    uc.setRequestProperty("If-Range", ifRange);
+            }
+
+            int code = uc.getResponseCode();
+            String location = uc.getHeaderField("Location");
+            if (code / 100 != 3 || location == null)
+                return uc;
+            IOUtils.closeQuietly(uc.getInputStream());
+            url = new URL(url, location);
+        }
+        throw new IOException("Too many redirects for " + this.url);
+    }
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+    /**
+     * Size of the ranges the content is split into.
+     */
+    private static final long RANGE_SIZE = 8 * 1024 * 1024;
+    /**
+     * How many ranges are fetched at once.
+     */
+    private static final int PARALLELISM = 4;
+    private static final int MAX_REDIRECTS = 5;
+}
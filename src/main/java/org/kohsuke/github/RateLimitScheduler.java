@@ -0,0 +1,61 @@
+package org.kohsuke.github;
+
+import java.io.IOException;
+
+/**
+ * Pluggable strategy to hold requests back before they are sent, so that the API rate limit
+ * is not exhausted in the first place.
+ *
+ * <p>
+ * Where {@link RateLimitHandler} reacts after GitHub has refused a request, a scheduler sees every
+ * request before it goes out, and learns about the remaining budget from the rate limit headers of
+ * every response.
+ *
+ * @see GitHubBuilder#withRateLimitScheduler(RateLimitScheduler)
+ * @see org.kohsuke.github.extras.PacingRateLimitScheduler
+ */
+public abstract class RateLimitScheduler {
+    /**
+     * Called before a request is sent. Blocks for as long as the request should be held back.
+     *
+     * @param priority
+     *      Priority of the {@link GitHub} instance making the request.
+     * @param resource
+     *      Rate limit the request counts against.
+     * @throws java.io.InterruptedIOException
+     *      if the thread is interrupted while waiting.
+     */
+    public abstract void acquire(RequestPriority priority, Resource resource) throws IOException;
+
+    /**
+     * Called with the rate limit reported in the headers of a response.
+     */
+    public abstract void update(GHRateLimit observed, Resource resource);
+
+    /**
+     * Separately accounted rate limits.
+     */
+    public enum Resource {
+        /**
+         * Most of the API.
+         */
+        CORE,
+        /**
+         * The search API, which has a much lower limit of its own.
+         */
+        SEARCH
+    }
+
+    /**
+     * Never holds requests back.
+     */
+    public static final RateLimitScheduler NONE = new RateLimitScheduler() {
+        @Override
+        public void acquire(RequestPriority priority, Resource resource) {
+        }
+
+        @Override
+        public void update(GHRateLimit observed, Resource resource) {
+        }
+    };
+}
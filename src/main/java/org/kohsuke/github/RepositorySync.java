@@ -0,0 +1,349 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Local copy of the issues, pull requests and milestones of a repository, kept on disk
+ * and brought up to date by fetching only what changed since the last {@link #refresh()}.
+ *
+ * <p>
+ * Each kind of entity is kept in {@code <directory>/<owner>/<repository>/}, as a file with one JSON object
+ * per line that only ever gets appended to, and compacted once it holds too many outdated versions,
+ * next to a checkpoint recording the last update that was fully stored. Nothing but the local
+ * filesystem is needed, and an interrupted refresh resumes from its checkpoint.
+ *
+ * <ul>
+ * <li>Issues, which include the issue side of pull requests, are listed by update time from the oldest,
+ *     {@code since} the checkpoint, which moves forward after every page. Rather than following page links,
+ *     which skip an issue whenever one on an earlier page is updated meanwhile, the first page is asked for again
+ *     {@code since} the new checkpoint.
+ * <li>Pull requests can't be asked for {@code since} a time, so they are listed by update time from the newest,
+ *     stopping at the first one that is older than the checkpoint. The checkpoint moves once the listing is done.
+ * <li>Milestones can't be sorted by update time either, but are few, so they are listed in full.
+ * </ul>
+ *
+ * <p>
+ * A directory must only be used by one instance at a time.
+ *
+ * @see GHRepository#listIssues(GHIssueState)
+ * @see GHRepository#listPullRequests(GHIssueState)
+ * @see GHRepository#listMilestones(GHIssueState)
+ */
+public class RepositorySync {
+    private final GHRepository repo;
+    private final Journal issues, pullRequests, milestones;
+
+    /**
+     * Opens the copy of the repository kept below the given directory, which starts empty the first time.
+     */
+    public RepositorySync(GHRepository repo, File directory) throws IOException {
+        this.repo = repo;
+        File dir = new File(new File(directory, repo.getOwnerName()), repo.getName());
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Unable to create " + dir);
+        issues = new Journal(dir, "issues");
+        pullRequests = new Journal(dir, "pulls");
+        milestones = new Journal(dir, "milestones");
+    }
+
+    /**
+     * Fetches what changed since the last refresh and stores it.
+     */
+    public synchronized void refresh() throws IOException {
+        refreshIssues();
+        refreshPullRequests();
+        refreshMilestones();
+    }
+
+    private void refreshIssues() throws IOException {
+        String since = issues.getCheckpoint();
+        int pageNumber = 1;
+        while (true) {
+            Requester r = repo.root.retrieve()
+                    .with("state", "all")
+                    .with("sort", "updated")
+                    .with("direction", "asc");
+            if (since != null)
+                r.with("since", since);
+            if (pageNumber > 1)
+                r.with("page", pageNumber);
+            Requester.PagingIterator<JsonNode[]> pages = r.asIterator(repo.getApiTailUrl("issues"), JsonNode[].class, PAGE_SIZE);
+            JsonNode[] page = nextPage(pages);
+            if (page == null || page.length == 0)
+                return;
+            issues.write(Arrays.asList(page));
+            // sorted from the oldest, so everything up to the last one is stored
+            String last = page[page.length - 1].path("updated_at").asText();
+            issues.setCheckpoint(last);
+            if (!pages.hasMorePages())
+                return;
+            if (last.equals(since)) {
+                // a whole page updated within the same second, which the next query would return again
+                pageNumber++;
+            } else {
+                since = last;
+                pageNumber = 1;
+            }
+        }
+    }
+
+    private void refreshPullRequests() throws IOException {
+        String since = pullRequests.getCheckpoint();
+        long sinceMillis = since == null ? Long.MIN_VALUE : GitHub.parseDateMillis(since);
+        Iterator<JsonNode[]> pages = repo.root.retrieve()
+                .with("state", "all")
+                .with("sort", "updated")
+                .with("direction", "desc")
+                .asIterator(repo.getApiTailUrl("pulls"), JsonNode[].class, PAGE_SIZE);
+        String newest = null;
+        JsonNode[] page;
+        while ((page = nextPage(pages)) != null) {
+            List<JsonNode> changed = new ArrayList<JsonNode>();
+            boolean seen = false;
+            for (JsonNode pr : page) {
+                String updatedAt = pr.path("updated_at").asText();
+                if (GitHub.parseDateMillis(updatedAt) < sinceMillis) {
+                    seen = true;
+                    break;
+                }
+                if (newest == null)
+                    newest = updatedAt;
+                changed.add(pr);
+            }
+            pullRequests.write(changed);
+            if (seen)
+                break;  // everything further down was already stored
+        }
+        if (newest != null)
+            pullRequests.setCheckpoint(newest);
+    }
+
+    private void refreshMilestones() throws IOException {
+        Iterator<JsonNode[]> pages = repo.root.retrieve()
+                .with("state", "all")
+                .asIterator(repo.getApiTailUrl("milestones"), JsonNode[].class, PAGE_SIZE);
+        List<JsonNode> all = new ArrayList<JsonNode>();
+        JsonNode[] page;
+        while ((page = nextPage(pages)) != null) {
+            all.addAll(Arrays.asList(page));
+        }
+        milestones.replace(all);
+    }
+
+    /**
+     * @return null once there are no more pages.
+     */
+    @CheckForNull
+    private static JsonNode[] nextPage(Iterator<JsonNode[]> pages) throws IOException {
+        try {
+            return pages.hasNext() ? pages.next() : null;
+        } catch (GHException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Issues as of the last refresh, including those of pull requests, by number.
+     */
+    public synchronized List<GHIssue> getIssues() throws IOException {
+        List<GHIssue> r = new ArrayList<GHIssue>();
+        for (String json : issues.values()) {
+            r.add(GitHub.MAPPER.readValue(json, GHIssue.class).wrap(repo));
+        }
+        return r;
+    }
+
+    /**
+     * Pull requests as of the last refresh, by number.
+     */
+    public synchronized List<GHPullRequest> getPullRequests() throws IOException {
+        List<GHPullRequest> r = new ArrayList<GHPullRequest>();
+        for (String json : pullRequests.values()) {
+            r.add(GitHub.MAPPER.readValue(json, GHPullRequest.class).wrapUp(repo));
+        }
+        return r;
+    }
+
+    /**
+     * Milestones as of the last refresh, by number.
+     */
+    public synchronized List<GHMilestone> getMilestones() throws IOException {
+        List<GHMilestone> r = new ArrayList<GHMilestone>();
+        for (String json : milestones.values()) {
+            r.add(GitHub.MAPPER.readValue(json, GHMilestone.class).wrap(repo));
+        }
+        return r;
+    }
+
+    /**
+     * Entities of one kind, by number, with the file they are kept in.
+     */
+    private static final class Journal {
+        private final File data, checkpointFile;
+        private final Map<Integer, String> entities = new TreeMap<Integer, String>();
+        /**
+         * Lines in {@link #data}, some of which may be older versions of an entity.
+         */
+        private int lines;
+        private String checkpoint;
+
+        Journal(File dir, String name) throws IOException {
+            data = new File(dir, name + ".jsonl");
+            checkpointFile = new File(dir, name + ".checkpoint");
+            boolean damaged = false;
+            if (data.exists()) {
+                BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(data), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = r.readLine()) != null) {
+                        try {
+                            put(line, GitHub.MAPPER.readTree(line));
+                        } catch (IOException e) {
+                            // the end of a write that was cut short
+                            damaged = true;
+                        }
+                    }
+                } finally {
+                    r.close();
+                }
+            }
+            if (damaged) {
+                LOGGER.log(WARNING, "Dropping the incomplete entries of " + data);
+                compact();
+            }
+            if (checkpointFile.exists()) {
+                Properties p = new Properties();
+                InputStream in = new FileInputStream(checkpointFile);
+                try {
+                    p.load(in);
+                } finally {
+                    in.close();
+                }
+                checkpoint = p.getProperty("updated_at");
+            }
+        }
+
+        private void put(String line, JsonNode entity) throws IOException {
+            JsonNode number = entity.get("number");
+            if (number == null)
+                throw new IOException("No number in " + line);
+            entities.put(number.asInt(), line);
+            lines++;
+        }
+
+        Collection<String> values() {
+            return entities.values();
+        }
+
+        /**
+         * Update time of the newest entity stored for sure, or null if nothing was stored yet.
+         */
+        @CheckForNull
+        String getCheckpoint() {
+            return checkpoint;
+        }
+
+        void setCheckpoint(String updatedAt) throws IOException {
+            Properties p = new Properties();
+            p.setProperty("updated_at", updatedAt);
+            File tmp = new File(checkpointFile.getPath() + ".tmp");
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                p.store(out, null);
+            } finally {
+                out.close();
+            }
+            replace(tmp, checkpointFile);
+            checkpoint = updatedAt;
+        }
+
+        /**
+         * Stores new versions of entities, making sure they are on disk before returning.
+         */
+        void write(Collection<JsonNode> changed) throws IOException {
+            if (changed.isEmpty())
+                return;
+            StringBuilder b = new StringBuilder();
+            for (JsonNode entity : changed) {
+                String line = GitHub.MAPPER.writeValueAsString(entity);
+                put(line, entity);
+                b.append(line).append('\n');
+            }
+            FileOutputStream out = new FileOutputStream(data, true);
+            try {
+                out.write(b.toString().getBytes("UTF-8"));
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (lines > 2 * entities.size() + COMPACTION_SLACK)
+                compact();
+        }
+
+        /**
+         * Stores the given entities instead of all the ones stored so far.
+         */
+        void replace(Collection<JsonNode> all) throws IOException {
+            entities.clear();
+            lines = 0;
+            for (JsonNode entity : all) {
+                put(GitHub.MAPPER.writeValueAsString(entity), entity);
+            }
+            compact();
+        }
+
+        /**
+         * Rewrites the file with only the current version of each entity.
+         */
+        private void compact() throws IOException {
+            File tmp = new File(data.getPath() + ".tmp");
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                for (String line : entities.values()) {
+                    out.write((line + '\n').getBytes("UTF-8"));
+                }
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            replace(tmp, data);
+            lines = entities.size();
+        }
+
+        private static void replace(File from, File to) throws IOException {
+            // renaming onto an existing file fails on Windows
+            if (!from.renameTo(to) && !(to.delete() && from.renameTo(to)))
+                throw new IOException("Unable to replace " + to);
+        }
+    }
+
+    private static final int PAGE_SIZE = 100;
+    /**
+     * Outdated lines tolerated in a journal on top of one per entity, before it is compacted.
+     */
+    private static final int COMPACTION_SLACK = 1000;
+    private static final Logger LOGGER = Logger.getLogger(RepositorySync.class.getName());
+}
@@ -0,0 +1,209 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * What a {@link RequestListener} gets to know about one request.
+ *
+ * <p>
+ * All durations are in nanoseconds.
+ */
+public class RequestEvent {
+    private final String method;
+    private final URL url;
+    private final String urlTemplate;
+    private final long start = System.nanoTime();
+    /*package*/ long attemptStart;
+    /*package*/ long end;
+    /*package*/ int statusCode = -1;
+    /*package*/ long bytesRead;
+    /*package*/ long bytesDecoded;
+    /*package*/ boolean compressed;
+    /*package*/ long timeToFirstByte = -1;
+    /*package*/ long parseTime;
+    /*package*/ int retryCount;
+    /*package*/ boolean coalesced;
+    /*package*/ GHRateLimit rateLimit;
+    /*package*/ RateLimitScheduler.Resource resource;
+    /*package*/ IOException failure;
+
+    /*package*/ RequestEvent(String method, URL url, String urlTemplate) {
+        this.method = method;
+        this.url = url;
+        this.urlTemplate = urlTemplate;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * The path of the URL with its parameters replaced by placeholders, such as
+     * {@code /repos/{owner}/{repo}/pulls/{number}}, so that requests to the same API method can be grouped.
+     */
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    /**
+     * HTTP status code of the last response, or -1 if none was received.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Bytes of response body read off the wire.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Bytes of response body after decompression.
+     */
+    public long getBytesDecoded() {
+        return compressed ? bytesDecoded : bytesRead;
+    }
+
+    /**
+     * Size of the response body on the wire compared to its decompressed size, 1 when not compressed.
+     */
+    public double getCompressionRatio() {
+        long decoded = getBytesDecoded();
+        return decoded == 0 ? 1 : (double) bytesRead / decoded;
+    }
+
+    /**
+     * Time from sending the last attempt until the response status and headers came back, or -1 if they didn't.
+     */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * Time spent reading and deserializing the response body.
+     */
+    public long getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * Time from start to end of the request, including retries, or -1 while it is still under way.
+     */
+    public long getDuration() {
+        return end == 0 ? -1 : end - start;
+    }
+
+    /**
+     * Number of times the request had to be sent again, for example because of the rate limit.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * True if the response was shared with an identical request that was already under way,
+     * so that no request of its own was sent.
+     *
+     * @see GitHubBuilder#withRequestCoalescing(boolean)
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Rate limit reported in the response headers, if any.
+     */
+    @CheckForNull
+    public GHRateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * The rate limit the request counted against, if reported.
+     */
+    @CheckForNull
+    public RateLimitScheduler.Resource getRateLimitResource() {
+        return resource;
+    }
+
+    /**
+     * Why the request failed, or {@code null} if it succeeded.
+     */
+    @CheckForNull
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + urlTemplate + " " + statusCode;
+    }
+
+    /**
+     * Replaces the parameters in an API path by placeholders.
+     */
+    /*package*/ static String templateOf(String path) {
+        String[] segments = path.split("/");
+        StringBuilder b = new StringBuilder();
+        String previous = "";
+        for (int i = 1; i < segments.length; i++) {
+            String s = segments[i];
+            b.append('/');
+            if (i <= 3 && "repos".equals(segments[1]) && segments.length > 3) {
+                b.append(i == 1 ? s : i == 2 ? "{owner}" : "{repo}");
+            } else if (REST_PARAMETERS.containsKey(previous)) {
+                // the rest of the path is one parameter that may contain slashes
+                b.append(REST_PARAMETERS.get(previous));
+                break;
+            } else if (PARAMETERS.containsKey(previous)) {
+                b.append(PARAMETERS.get(previous));
+            } else if (NUMBER.matcher(s).matches()) {
+                b.append(NUMBERED.contains(previous) ? "{number}" : "{id}");
+            } else if (SHA1.matcher(s).matches()) {
+                b.append("{sha}");
+            } else {
+                b.append(s);
+            }
+            previous = s;
+        }
+        return b.length() == 0 ? "/" : b.toString();
+    }
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+    private static final Set<String> NUMBERED = new HashSet<String>(Arrays.asList("issues", "pulls", "milestones"));
+    private static final Map<String, String> PARAMETERS = new HashMap<String, String>();
+    private static final Map<String, String> REST_PARAMETERS = new HashMap<String, String>();
+
+    static {
+        PARAMETERS.put("users", "{user}");
+        PARAMETERS.put("orgs", "{org}");
+        PARAMETERS.put("members", "{user}");
+        PARAMETERS.put("public_members", "{user}");
+        PARAMETERS.put("collaborators", "{user}");
+        PARAMETERS.put("following", "{user}");
+        PARAMETERS.put("branches", "{branch}");
+        PARAMETERS.put("labels", "{name}");
+        PARAMETERS.put("commits", "{sha}");
+        PARAMETERS.put("statuses", "{sha}");
+        PARAMETERS.put("blobs", "{sha}");
+        PARAMETERS.put("trees", "{sha}");
+        PARAMETERS.put("compare", "{base}...{head}");
+        REST_PARAMETERS.put("contents", "{path}");
+        REST_PARAMETERS.put("refs", "{ref}");
+    }
+}
@@ -0,0 +1,25 @@
+package org.kohsuke.github;
+
+/**
+ * Pluggable instrumentation of the requests made to GitHub, for metrics or tracing.
+ *
+ * <p>
+ * Callbacks happen on the thread making the request, so implementations need to be thread-safe
+ * and quick. Retries because of rate limits or time outs are part of the same request.
+ *
+ * @see GitHubBuilder#withRequestListener(RequestListener)
+ * @see org.kohsuke.github.extras.RequestHistogram
+ */
+public interface RequestListener {
+    /**
+     * Called before the request is sent.
+     */
+    void onStart(RequestEvent event);
+
+    /**
+     * Called once the response has been processed, or the request has failed.
+     * When the response body is handed over as a stream, such as by {@link GHContent#read()},
+     * this only happens once the stream is closed, on the thread closing it.
+     */
+    void onEnd(RequestEvent event);
+}
@@ -0,0 +1,23 @@
+package org.kohsuke.github;
+
+/**
+ * How urgently the requests made through a {@link GitHub} instance need to go out,
+ * which a {@link RateLimitScheduler} uses to decide who waits when the rate limit runs low.
+ *
+ * @see GitHubBuilder#withRequestPriority(RequestPriority)
+ */
+public enum RequestPriority {
+    /**
+     * Someone is waiting on the answer. Sent right away for as long as there is budget left.
+     */
+    INTERACTIVE,
+    /**
+     * Paced so that the budget lasts until the rate limit window resets.
+     */
+    NORMAL,
+    /**
+     * Background work such as crawls. Paced like {@link #NORMAL}, but leaves part of the budget
+     * untouched for the other priorities.
+     */
+    BATCH
+}
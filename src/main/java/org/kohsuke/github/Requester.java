@@ -25,15 +25,23 @@ package org.kohsuke.github;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.WillClose;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
@@ -44,16 +52,25 @@ import java.net.ProtocolException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -82,6 +99,15 @@ class Requester {
     private String method = "POST";
     private String contentType = null;
     private InputStream body;
+    /**
+     * Request body to be sent from a file, which unlike {@link #body} can be sent again.
+     */
+    private File file;
+    private ProgressListener progress;
+    /**
+     * How many times a request with a {@link #file} body is sent again after a transient failure.
+     */
+    private int retries;
 
     /**
      * Current connection.
@@ -89,6 +115,38 @@ class Requester {
     private HttpURLConnection uc;
     private boolean forceBody;
 
+    /**
+     * Authorization header sent with the current request.
+     */
+    private String authorization;
+    /**
+     * Token of {@link GitHub#tokenPool} the current request is sent with, if any.
+     */
+    private TokenPool.Token token;
+    /**
+     * Request being reported to {@link GitHub#requestListener}, if any.
+     */
+    private RequestEvent event;
+
+    /**
+     * Key of the current request in {@link GitHub#getResponseCache()}, or null if the request is not cacheable.
+     */
+    private String cacheKey;
+    /**
+     * Response previously stored under {@link #cacheKey}, which the current request revalidates.
+     */
+    private CachedResponse cached;
+    /**
+     * True if the current response was answered by 304 and its body replayed from {@link #cached}.
+     */
+    private boolean servedFromCache;
+    /**
+     * Whether {@link #parse(Class, Object)} should keep the body of a successful response in {@link #recordedBody},
+     * for the identical requests waiting on the current one.
+     */
+    private boolean recordBody;
+    private byte[] recordedBody;
+
     private static class Entry {
         String key;
         Object value;
@@ -178,6 +236,32 @@ class Requester {
         return this;
     }
 
+    /**
+     * Sends the content of the file as the request body, streamed from the disk rather than buffered in memory.
+     * Unlike a stream, the file can be sent again if the request has to be retried.
+     */
+    public Requester with(File body) {
+        this.file = body;
+        return this;
+    }
+
+    /**
+     * Reports how much of a {@linkplain #with(File) file body} has been sent.
+     */
+    public Requester progress(@CheckForNull ProgressListener progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Sends a request with a {@linkplain #with(File) file body} again, up to the given number of times,
+     * when the connection fails before the whole body was sent.
+     */
+    public Requester retries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
 	public Requester withNullable(String key, Object value) {
 		args.add(new Entry(key, value));
 		return this;
@@ -268,72 +352,191 @@ class Requester {
             }
         }
 
-        while (true) {// loop while API rate limit is hit
-            setupConnection(root.getApiURL(tailApiUrl));
-
-            buildRequest();
+        T result = fetchPage(root.getApiURL(tailApiUrl), type, instance, tailApiUrl);
+        if (result == null || type == null || !type.isArray())
+            return result;
+
+        // an array may span several pages. Collect them all first, so that the final array is built in one go.
+        String next = findLink(getLinkHeader(), "next");
+        if (next == null)
+            return result;
+        List<Object> pages = new ArrayList<Object>();
+        pages.add(result);
+        int total = Array.getLength(result);
+        while (next != null) {
+            T page = fetchPage(root.getApiURL(next), type, null, next);
+            if (page == null)
+                break;  // 304
+            pages.add(page);
+            total += Array.getLength(page);
+            next = findLink(getLinkHeader(), "next");
+        }
 
-            try {
-                T result = parse(type, instance);
-                if (type != null && type.isArray()) { // we might have to loop for pagination - done through recursion
-                    final String links = uc.getHeaderField("link");
-                    if (links != null && links.contains("rel=\"next\"")) {
-                        Pattern nextLinkPattern = Pattern.compile(".*<(.*)>; rel=\"next\"");
-                        Matcher nextLinkMatcher = nextLinkPattern.matcher(links);
-                        if (nextLinkMatcher.find()) {
-                            final String link = nextLinkMatcher.group(1);
-                            T nextResult = _to(link, type, instance);
-                            setResponseHeaders(nextResult);
-                            final int resultLength = Array.getLength(result);
-                            final int nextResultLength = Array.getLength(nextResult);
-                            T concatResult = (T) Array.newInstance(type.getComponentType(), resultLength + nextResultLength);
-                            System.arraycopy(result, 0, concatResult, 0, resultLength);
-                            System.arraycopy(nextResult, 0, concatResult, resultLength, nextResultLength);
-                            result = concatResult;
-                        }
-                    }
-                }
-                return setResponseHeaders(result);
-            } catch (IOException e) {
-                handleApiError(e);
-            } finally {
-                noteRateLimit(tailApiUrl);
-            }
+        T all = type.cast(Array.newInstance(type.getComponentType(), total));
+        int pos = 0;
+        for (Object page : pages) {
+            int len = Array.getLength(page);
+            System.arraycopy(page, 0, all, pos, len);
+            pos += len;
         }
+        return setResponseHeaders(all);
     }
 
     /**
      * Makes a request and just obtains the HTTP status code.
      */
     public int asHttpStatusCode(String tailApiUrl) throws IOException {
-        while (true) {// loop while API rate limit is hit
-            method("GET");
-            setupConnection(root.getApiURL(tailApiUrl));
+        method("GET");
+        URL url = root.getApiURL(tailApiUrl);
+        startEvent(url);
+        try {
+            while (true) {// loop while API rate limit is hit
+                setupConnection(url);
 
-            buildRequest();
+                buildRequest();
 
-            try {
-                return uc.getResponseCode();
-            } catch (IOException e) {
-                handleApiError(e);
-            } finally {
-                noteRateLimit(tailApiUrl);
+                try {
+                    return receivedResponse(uc.getResponseCode());
+                } catch (IOException e) {
+                    handleApiError(e);
+                } finally {
+                    noteRateLimit(tailApiUrl);
+                }
             }
+        } catch (IOException e) {
+            throw failEvent(e);
+        } finally {
+            endEvent();
         }
     }
 
     public InputStream asStream(String tailApiUrl) throws IOException {
-        while (true) {// loop while API rate limit is hit
-            setupConnection(root.getApiURL(tailApiUrl));
+        URL url = root.getApiURL(tailApiUrl);
+        startEvent(url);
+        try {
+            while (true) {// loop while API rate limit is hit
+                setupConnection(url);
 
-            buildRequest();
+                buildRequest();
 
-            try {
-                return wrapStream(uc.getInputStream());
-            } catch (IOException e) {
-                handleApiError(e);
-            } finally {
-                noteRateLimit(tailApiUrl);
+                InputStream in;
+                try {
+                    in = uc.getInputStream();
+                    receivedResponse(uc.getResponseCode());
+                    in = wrapStream(in);
+                } catch (IOException e) {
+                    handleApiError(e);
+                    continue;
+                } finally {
+                    noteRateLimit(tailApiUrl);
+                }
+                return endEventOnClose(in);
+            }
+        } catch (IOException e) {
+            throw failEvent(e);
+        } finally {
+            endEvent();
+        }
+    }
+
+    /**
+     * Sends the request without following redirects, and hands back the connection once the response headers
+     * have come back, for callers that read the response themselves, like ranged downloads.
+     *
+     * <p>
+     * Rate limits and abuse limits are handled like for the other methods, and other errors are thrown,
+     * except for a 416 Range Not Satisfiable, which a range request gets for empty content.
+     * Redirects are left to the caller, so that it can decide where the credential goes.
+     * The body is asked for without compression, so that byte ranges apply to the content itself.
+     * The request is reported to the {@link RequestListener} as soon as the headers have come back.
+     * The caller disconnects the connection when done with it.
+     */
+    /*package*/ HttpURLConnection asConnection(String tailApiUrl) throws IOException {
+        URL url = root.getApiURL(tailApiUrl);
+        startEvent(url);
+        try {
+            while (true) {// loop while API rate limit is hit
+                setupConnection(url);
+                uc.setInstanceFollowRedirects(false);
+                uc.setRequestProperty("Accept-Encoding", "identity");
+
+                buildRequest();
+
+                try {
+                    int code = receivedResponse(uc.getResponseCode());
+                    if (code >= HttpURLConnection.HTTP_BAD_REQUEST && code != HTTP_RANGE_NOT_SATISFIABLE)
+                        uc.getInputStream();    // throws the error for handleApiError
+                    return uc;
+                } catch (IOException e) {
+                    handleApiError(e);
+                } finally {
+                    noteRateLimit(tailApiUrl);
+                }
+            }
+        } catch (IOException e) {
+            throw failEvent(e);
+        } finally {
+            endEvent();
+        }
+    }
+
+    /**
+     * Streams the response body into the given channel, without holding it in memory.
+     *
+     * <p>
+     * When the target is a {@link FileChannel}, the bytes are handed to {@link FileChannel#transferFrom}
+     * so that the JDK can move them with as few copies as the platform allows.
+     *
+     * @return number of bytes written.
+     */
+    public long transferTo(String tailApiUrl, WritableByteChannel target) throws IOException {
+        ReadableByteChannel in = Channels.newChannel(asStream(tailApiUrl));
+        try {
+            long total = 0;
+            if (target instanceof FileChannel) {
+                FileChannel file = (FileChannel) target;
+                long n;
+                while ((n = file.transferFrom(in, file.position(), BufferPool.SIZE)) > 0) {
+                    file.position(file.position() + n);
+                    total += n;
+                }
+            } else {
+                ByteBuffer buf = BufferPool.acquire();
+                try {
+                    while (in.read(buf) >= 0) {
+                        buf.flip();
+                        while (buf.hasRemaining()) {
+                            total += target.write(buf);
+                        }
+                        buf.clear();
+                    }
+                } finally {
+                    BufferPool.release(buf);
+                }
+            }
+            return total;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Like {@link #transferTo(String, WritableByteChannel)}, but into a file, which is replaced.
+     * Whatever was written is deleted if the transfer fails.
+     */
+    public long transferTo(String tailApiUrl, File target) throws IOException {
+        FileOutputStream out = new FileOutputStream(target);
+        boolean done = false;
+        try {
+            long n = transferTo(tailApiUrl, out.getChannel());
+            out.close();
+            done = true;
+            return n;
+        } finally {
+            if (!done) {
+                IOUtils.closeQuietly(out);
+                if (!target.delete())
+                    LOGGER.log(FINE, "Failed to delete the partial download " + target);
             }
         }
     }
@@ -343,10 +546,6 @@ class Requester {
             // the rate_limit API is "free"
             return;
         }
-        if (tailApiUrl.startsWith("/search")) {
-            // the search API uses a different rate limit
-            return;
-        }
         String limit = uc.getHeaderField("X-RateLimit-Limit");
         if (StringUtils.isBlank(limit)) {
             // if we are missing a header, return fast
@@ -381,7 +580,19 @@ class Requester {
         }
         try {
             observed.reset = new Date(Long.parseLong(reset)); // this is madness, storing the date as seconds
-            root.updateRateLimit(observed);
+            // the search API uses a different rate limit
+            RateLimitScheduler.Resource resource = rateLimitResource(uc.getURL());
+            if (token != null) {
+                // the headers only speak for the token that was used, the budget is what the whole pool has left
+                GHRateLimit pooled = root.tokenPool.update(token, observed, resource, System.currentTimeMillis());
+                root.updateRateLimit(pooled, resource, true);
+            } else {
+                root.updateRateLimit(observed, resource);
+            }
+            if (event != null) {
+                event.rateLimit = observed;
+                event.resource = resource;
+            }
         } catch (NumberFormatException e) {
             if (LOGGER.isLoggable(FINEST)) {
                 LOGGER.log(FINEST, "Malformed X-RateLimit-Reset header value " + reset, e);
@@ -401,12 +612,16 @@ class Requester {
         if (isMethodWithBody()) {
             uc.setDoOutput(true);
 
-            if (body == null) {
+            if (file != null) {
+                uc.setRequestProperty("Content-type", defaultString(contentType,"application/octet-stream"));
+                sendFile();
+            } else if (body == null) {
                 uc.setRequestProperty("Content-type", defaultString(contentType,"application/json"));
                 Map json = new HashMap();
                 for (Entry e : args) {
                     json.put(e.key, e.value);
                 }
+                setStreamingMode(json);
                 MAPPER.writeValue(uc.getOutputStream(), json);
             } else {
                 uc.setRequestProperty("Content-type", defaultString(contentType,"application/x-www-form-urlencoded"));
@@ -423,6 +638,87 @@ class Requester {
         }
     }
 
+    /**
+     * Keeps {@link HttpURLConnection} from buffering a JSON body that carries {@link Base64Content} to learn its length.
+     * The length is worked out without encoding the content when it is known, and the body is sent in chunks otherwise.
+     */
+    private void setStreamingMode(Map<String, Object> json) throws IOException {
+        Map<String, Object> rest = null;
+        long length = 0;
+        for (Map.Entry<String, Object> e : json.entrySet()) {
+            if (!(e.getValue() instanceof Base64Content))
+                continue;
+            long encoded = ((Base64Content) e.getValue()).getEncodedLength();
+            if (encoded < 0) {
+                uc.setChunkedStreamingMode(BufferPool.SIZE);
+                return;
+            }
+            if (rest == null)
+                rest = new HashMap<String, Object>(json);
+            // base64 needs no escaping, so the content only adds its own length between the quotes
+            rest.put(e.getKey(), "");
+            length += encoded;
+        }
+        if (rest == null)
+            return;     // small enough to be buffered
+        length += MAPPER.writeValueAsBytes(rest).length;
+        // the long variant only exists since Java 7
+        if (length <= Integer.MAX_VALUE)
+            uc.setFixedLengthStreamingMode((int) length);
+        else
+            uc.setChunkedStreamingMode(BufferPool.SIZE);
+    }
+
+    /**
+     * Streams the {@link #file} body straight from the disk.
+     */
+    private void sendFile() throws IOException {
+        long total = file.length();
+        // the long variant only exists since Java 7
+        if (total <= Integer.MAX_VALUE)
+            uc.setFixedLengthStreamingMode((int) total);
+        else
+            uc.setChunkedStreamingMode(BufferPool.SIZE);
+
+        FileChannel in = new FileInputStream(file).getChannel();
+        ByteBuffer buf = BufferPool.acquire();
+        try {
+            OutputStream out = uc.getOutputStream();
+            long sent = 0;
+            while (in.read(buf) >= 0) {
+                out.write(buf.array(), buf.arrayOffset(), buf.position());
+                sent += buf.position();
+                buf.clear();
+                if (progress != null)
+                    progress.onProgress(sent, total);
+            }
+            out.close();
+        } finally {
+            BufferPool.release(buf);
+            in.close();
+        }
+    }
+
+    /**
+     * Decides whether a request that failed while it was being sent is sent again, which is only done for
+     * {@linkplain #with(File) file bodies} since they can be sent again without holding them in memory.
+     * Once the whole body has gone out, the server may have acted on it, so failures are not retried from then on.
+     *
+     * @param failures
+     *      number of failures so far, including this one.
+     */
+    private boolean shouldRetry(IOException e, int failures) throws IOException {
+        if (file == null || failures > retries)
+            return false;
+        LOGGER.log(INFO, "Sending " + uc.getURL() + " failed, trying again (" + failures + "/" + retries + ")", e);
+        try {
+            Thread.sleep(RETRY_DELAY << (failures - 1));
+        } catch (InterruptedException x) {
+            throw (InterruptedIOException) new InterruptedIOException().initCause(x);
+        }
+        return true;
+    }
+
     private boolean isMethodWithBody() {
         return forceBody || !METHODS_WITHOUT_BODY.contains(method);
     }
@@ -432,7 +728,7 @@ class Requester {
      *
      * Every iterator call reports a new batch.
      */
-    /*package*/ <T> Iterator<T> asIterator(String tailApiUrl, Class<T> type, int pageSize) {
+    /*package*/ <T> PagingIterator<T> asIterator(String tailApiUrl, Class<T> type, int pageSize) {
         method("GET");
 
         if (pageSize!=0)
@@ -476,6 +772,11 @@ class Requester {
          */
         private URL url;
 
+        /**
+         * URL of the last page, if the server told us about it.
+         */
+        private URL lastUrl;
+
         PagingIterator(Class<T> type, String tailApiUrl, URL url) {
             this.type = type;
             this.tailApiUrl = tailApiUrl;
@@ -499,26 +800,26 @@ class Requester {
             throw new UnsupportedOperationException();
         }
 
+        /**
+         * Whether the server has pages after those returned so far, without retrieving them.
+         */
+        boolean hasMorePages() {
+            return next!=null || url!=null;
+        }
+
         private void fetch() {
             if (next!=null) return; // already fetched
             if (url==null)  return; // no more data to fetch
 
             try {
-                while (true) {// loop while API rate limit is hit
-                    setupConnection(url);
-                    try {
-                        next = parse(type,null);
-                        assert next!=null;
-                        findNextURL();
-                        return;
-                    } catch (IOException e) {
-                        handleApiError(e);
-                    } finally {
-                        noteRateLimit(tailApiUrl);
-                    }
+                next = fetchPage(url, type, null, tailApiUrl);
+                if (next==null) {
+                    url = null; // 304 to a conditional request, so there's nothing new
+                    return;
                 }
+                findNextURL();
             } catch (IOException e) {
-                throw new GHException("Failed to retrieve "+url);
+                throw new GHException("Failed to retrieve "+url, e);
             }
         }
 
@@ -527,31 +828,342 @@ class Requester {
          */
         private void findNextURL() throws MalformedURLException {
             url = null; // start defensively
-            String link = uc.getHeaderField("Link");
+            lastUrl = null;
+            String link = getLinkHeader();
             if (link==null) return;
 
-            for (String token : link.split(", ")) {
-                if (token.endsWith("rel=\"next\"")) {
-                    // found the next page. This should look something like
-                    // <https://api.github.com/repos?page=3&per_page=100>; rel="next"
-                    int idx = token.indexOf('>');
-                    url = new URL(token.substring(1,idx));
+            // This should look something like
+            // <https://api.github.com/repos?page=3&per_page=100>; rel="next", <https://api.github.com/repos?page=50&per_page=100>; rel="last"
+            for (Matcher m = LINK.matcher(link); m.find();) {
+                if ("next".equals(m.group(2)))
+                    url = new URL(m.group(1));
+                else if ("last".equals(m.group(2)))
+                    lastUrl = new URL(m.group(1));
+            }
+
+            // no "next" link means we are done.
+        }
+
+        /**
+         * Once a page has been retrieved, works out the URLs of all the pages that remain
+         * from the "next" and "last" links.
+         *
+         * @return null if the collection isn't paginated by page number.
+         */
+        private List<URL> remainingPages() throws MalformedURLException {
+            if (url==null || lastUrl==null) return null;
+            Matcher from = PAGE_PARAMETER.matcher(url.toString());
+            Matcher to = PAGE_PARAMETER.matcher(lastUrl.toString());
+            if (!from.find() || !to.find()) return null;
+
+            int first = Integer.parseInt(from.group(2));
+            int last = Integer.parseInt(to.group(2));
+            List<URL> pages = new ArrayList<URL>();
+            for (int page = first; page <= last; page++) {
+                pages.add(new URL(to.replaceFirst("$1" + page)));
+            }
+            return pages;
+        }
+
+        /**
+         * Reads pages ahead of the consumer, retrieving up to {@code depth} of them concurrently
+         * when the server tells how many pages there are.
+         * Otherwise falls back to reading them ahead one after the other.
+         *
+         * @see PagedIterable#withParallelPrefetch(int)
+         */
+        Iterator<T> inParallel(int depth) {
+            return new ParallelIterator(depth);
+        }
+
+        private class ParallelIterator implements Iterator<T> {
+            private final int depth;
+            /**
+             * Pages not requested yet, or null until the first page has been seen.
+             */
+            private LinkedList<URL> remaining;
+            private final LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+            private Iterator<T> fallback;
+
+            ParallelIterator(int depth) {
+                if (depth <= 0)
+                    throw new IllegalArgumentException("depth must be positive: " + depth);
+                this.depth = depth;
+            }
+
+            public boolean hasNext() {
+                start();
+                if (fallback!=null)
+                    return fallback.hasNext();
+                return PagingIterator.this.next!=null || !pending.isEmpty();
+            }
+
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                if (fallback!=null)
+                    return fallback.next();
+                if (PagingIterator.this.next!=null)
+                    return PagingIterator.this.next(); // the first page
+                Future<T> f = pending.removeFirst();
+                schedule();
+                try {
+                    return f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GHException("Interrupted while waiting for the next page", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+                    throw new GHException("Failed to retrieve a page of "+tailApiUrl, e.getCause());
+                }
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private void start() {
+                if (remaining!=null || fallback!=null) return;
+
+                List<URL> pages = null;
+                if (PagingIterator.this.hasNext()) {
+                    try {
+                        pages = remainingPages();
+                    } catch (MalformedURLException e) {
+                        // fall back to following the "next" links
+                    }
+                }
+                if (pages==null) {
+                    fallback = new PrefetchingIterator<T>(PagingIterator.this, depth);
                     return;
                 }
+                url = null; // from now on we retrieve pages ourselves
+                remaining = new LinkedList<URL>(pages);
+                schedule();
             }
 
-            // no more "next" link. we are done.
+            private void schedule() {
+                while (pending.size() < depth && !remaining.isEmpty()) {
+                    final URL page = remaining.removeFirst();
+                    // each page needs its own connection, hence its own Requester
+                    final Requester r = new Requester(root);
+                    r.headers.putAll(headers);
+                    r.method("GET");
+                    pending.add(PrefetchingIterator.EXECUTOR.submit(new Callable<T>() {
+                        public T call() throws IOException {
+                            return r.fetchPage(page, type, null, tailApiUrl);
+                        }
+                    }));
+                }
+            }
         }
     }
 
+    /**
+     * Makes one request and parses its response, retrying while the API rate limit is hit.
+     */
+    private <T> T fetchPage(URL url, Class<T> type, T instance, String tailApiUrl) throws IOException {
+        startEvent(url);
+        InFlightRequests.Call call = coalesce(url);
+        try {
+            if (call != null && !call.isLeader()) {
+                InFlightRequests.Response shared;
+                try {
+                    shared = call.await();
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // the server refused the request for whoever sent it
+                    if (event != null)
+                        event.coalesced = true;
+                    throw e;
+                }
+                if (shared != null)
+                    return setResponseHeaders(parseShared(shared, type, instance));
+                // the request failed for whoever sent it, possibly only this once, so send it on our own
+                // rather than queue up behind yet another caller
+                call = null;
+            }
+
+            recordBody = call != null;
+            int failures = 0;
+            while (true) {// loop while API rate limit is hit
+                setupConnection(url);
+                prepareConditionalRequest(url);
+
+                try {
+                    buildRequest();
+                } catch (IOException e) {
+                    if (shouldRetry(e, ++failures))
+                        continue;
+                    throw e;
+                }
+
+                try {
+                    T result = setResponseHeaders(parse(type, instance));
+                    if (call != null && recordedBody != null)
+                        call.complete(new InFlightRequests.Response(uc, recordedBody, servedFromCache ? cached.getLink() : null));
+                    return result;
+                } catch (IOException e) {
+                    handleApiError(e);
+                } finally {
+                    noteRateLimit(tailApiUrl);
+                }
+            }
+        } catch (IOException e) {
+            if (call != null && isRefusal(e))
+                call.fail(e);
+            throw failEvent(e);
+        } finally {
+            if (call != null)
+                call.complete(null);
+            recordBody = false;
+            recordedBody = null;
+            endEvent();
+        }
+    }
+
+    /**
+     * Joins an identical request that is already under way, if the request can be shared.
+     *
+     * @return null if the request is to be sent on its own.
+     */
+    @CheckForNull
+    private InFlightRequests.Call coalesce(URL url) {
+        InFlightRequests inFlight = root.inFlightRequests;
+        if (inFlight == null || !"GET".equals(method) || forceBody || body != null)
+            return null;
+        // callers that do their own conditional requests, like GHNotificationStream, expect to see the 304
+        if (headers.containsKey("If-Modified-Since") || headers.containsKey("If-None-Match"))
+            return null;
+        // tokens of a pool are interchangeable, so all of them share responses
+        String auth = root.encodedAuthorization;
+        return inFlight.join(method + " " + url + " " + headers
+                + (auth == null ? "" : " " + DigestUtils.sha1Hex(auth)));
+    }
+
+    /**
+     * Whether the server answered the request with a client error, which it would answer an identical request with
+     * as well, as opposed to a server error or a network failure.
+     */
+    private static boolean isRefusal(IOException e) {
+        if (e instanceof FileNotFoundException)
+            return true;
+        if (e instanceof HttpException) {
+            int responseCode = ((HttpException) e).getResponseCode();
+            return responseCode >= 400 && responseCode < 500;
+        }
+        return false;
+    }
+
+    /**
+     * Deserializes the response to an identical request, without sending this one.
+     */
+    private <T> T parseShared(InFlightRequests.Response shared, Class<T> type, T instance) throws IOException {
+        uc = shared.replay();
+        token = null;
+        cacheKey = null;
+        cached = null;
+        servedFromCache = false;
+        if (event != null) {
+            event.coalesced = true;
+            event.attemptStart = System.nanoTime();
+        }
+        return parse(type, instance);
+    }
+
+    private void startEvent(URL url) {
+        RequestListener listener = root.requestListener;
+        if (listener == null) {
+            event = null;
+            return;
+        }
+        String path = url.getPath();
+        try {
+            String base = root.getApiURL("/").getPath();
+            if (path.startsWith(base))
+                path = path.substring(base.length() - 1);
+        } catch (IOException e) {
+            // keep the full path
+        }
+        event = new RequestEvent(method, url, RequestEvent.templateOf(path));
+        listener.onStart(event);
+    }
+
+    /**
+     * Records that the status line and headers of a response have come back.
+     */
+    private int receivedResponse(int statusCode) {
+        if (event != null) {
+            event.statusCode = statusCode;
+            event.timeToFirstByte = System.nanoTime() - event.attemptStart;
+        }
+        return statusCode;
+    }
+
+    private IOException failEvent(IOException e) {
+        if (event != null)
+            event.failure = e;
+        return e;
+    }
+
+    private void endEvent() {
+        if (event != null) {
+            event.end = System.nanoTime();
+            root.requestListener.onEnd(event);
+            event = null;
+        }
+    }
+
+    /**
+     * Hands the end of the request over to the response body, so that it is reported once the caller closes it.
+     */
+    private InputStream endEventOnClose(InputStream in) {
+        if (event == null || in == null)
+            return in;
+        in = new EventEndingInputStream(in, root.requestListener, event);
+        event = null;
+        return in;
+    }
+
+
+    /**
+     * Finds the URL of the given relation in the pagination "Link" header.
+     */
+    private static String findLink(String header, String rel) {
+        if (header == null) return null;
+        for (Matcher m = LINK.matcher(header); m.find();) {
+            if (rel.equals(m.group(2)))
+                return m.group(1);
+        }
+        return null;
+    }
 
     private void setupConnection(URL url) throws IOException {
+        RateLimitScheduler.Resource resource = rateLimitResource(url);
+        if (!url.getPath().endsWith("/rate_limit"))
+            root.rateLimitScheduler.acquire(root.requestPriority, resource);
+
+        if (event != null) {
+            if (event.attemptStart != 0)
+                event.retryCount++;
+            event.attemptStart = System.nanoTime();
+        }
+
         uc = root.getConnector().connect(url);
 
+        authorization = root.encodedAuthorization;
+        token = null;
+        if (root.tokenPool != null) {
+            token = root.tokenPool.select(resource, System.currentTimeMillis());
+            authorization = token.encodedAuthorization;
+        }
+
         // if the authentication is needed but no credential is given, try it anyway (so that some calls
         // that do work with anonymous access in the reduced form should still work.)
-        if (root.encodedAuthorization!=null)
-            uc.setRequestProperty("Authorization", root.encodedAuthorization);
+        if (authorization!=null)
+            uc.setRequestProperty("Authorization", authorization);
 
         for (Map.Entry<String, String> e : headers.entrySet()) {
             String v = e.getValue();
@@ -561,6 +1173,60 @@ class Requester {
 
         setRequestMethod(uc);
         uc.setRequestProperty("Accept-Encoding", "gzip");
+
+        cacheKey = null;
+        cached = null;
+        servedFromCache = false;
+    }
+
+    /**
+     * Figures out which rate limit a request to the given URL counts against.
+     */
+    private RateLimitScheduler.Resource rateLimitResource(URL url) {
+        try {
+            if (url.getPath().startsWith(root.getApiURL("/search/").getPath()))
+                return RateLimitScheduler.Resource.SEARCH;
+        } catch (IOException e) {
+            // fall through
+        }
+        return RateLimitScheduler.Resource.CORE;
+    }
+
+    /**
+     * If a response cache is configured and we have seen this resource before,
+     * ask GitHub to only send it again if it has changed.
+     *
+     * <p>
+     * Only {@link #parse(Class, Object, int)} knows how to replay the cached body on a 304, so this
+     * is left out of requests whose response is read as a stream or a status code.
+     */
+    private void prepareConditionalRequest(URL url) {
+        ResponseCache cache = root.getResponseCache();
+        if (cache == null || !"GET".equals(method) || forceBody)
+            return;
+        // callers that do their own conditional requests, like GHNotificationStream, expect to see the 304
+        if (headers.containsKey("If-Modified-Since") || headers.containsKey("If-None-Match"))
+            return;
+
+        cacheKey = url + " " + defaultString(headers.get("Accept")) + " "
+                + (authorization == null ? "" : DigestUtils.sha1Hex(authorization));
+        cached = cache.get(cacheKey);
+        if (cached != null) {
+            if (cached.getETag() != null)
+                uc.setRequestProperty("If-None-Match", cached.getETag());
+            else if (cached.getLastModified() != null)
+                uc.setRequestProperty("If-Modified-Since", cached.getLastModified());
+        }
+    }
+
+    /**
+     * Pagination header of the current response, falling back to the cached one when the body was replayed.
+     */
+    private String getLinkHeader() {
+        String link = uc.getHeaderField("Link");
+        if (link == null && servedFromCache)
+            link = cached.getLink();
+        return link;
     }
 
     private void setRequestMethod(HttpURLConnection uc) throws IOException {
@@ -600,32 +1266,62 @@ class Requester {
     }
 
     private <T> T parse(Class<T> type, T instance, int timeouts) throws IOException {
-        InputStreamReader r = null;
+        RecordingInputStream in = null;
         int responseCode = -1;
         String responseMessage = null;
         try {
-            responseCode = uc.getResponseCode();
+            responseCode = receivedResponse(uc.getResponseCode());
             responseMessage = uc.getResponseMessage();
+            ResponseCache cache = root.getResponseCache();
+            InputStream body;
+            boolean store = false;
+            boolean share = false;
+            recordedBody = null;
             if (responseCode == 304) {
-                return null;    // special case handling for 304 unmodified, as the content will be ""
-            }
-            if (responseCode == 204 && type!=null && type.isArray()) {
-                // no content
-                return type.cast(Array.newInstance(type.getComponentType(),0));
+                if (cached == null)
+                    return null;    // special case handling for 304 unmodified, as the content will be ""
+                // unchanged since we stored it, so replay what we got the last time
+                servedFromCache = true;
+                body = new ByteArrayInputStream(cached.getBody());
+                // callers waiting for this request get what we replay
+                share = recordBody;
+            } else {
+                if (responseCode == 204 && type!=null && type.isArray()) {
+                    // no content
+                    return type.cast(Array.newInstance(type.getComponentType(),0));
+                }
+                body = wrapStream(uc.getInputStream());
+                store = cache != null && cacheKey != null && responseCode == 200
+                        && (uc.getHeaderField("ETag") != null || uc.getHeaderField("Last-Modified") != null);
+                share = recordBody && responseCode == 200;
             }
 
-            r = new InputStreamReader(wrapStream(uc.getInputStream()), "UTF-8");
-            String data = IOUtils.toString(r);
-            if (type!=null)
-                try {
-                    return setResponseHeaders(MAPPER.readValue(data, type));
-                } catch (JsonMappingException e) {
-                    throw (IOException)new IOException("Failed to deserialize " +data).initCause(e);
-                }
-            if (instance!=null) {
-                return setResponseHeaders(MAPPER.readerForUpdating(instance).<T>readValue(data));
+            // feed the response straight into Jackson instead of buffering it in a String first,
+            // only keeping the beginning of the body around in case we need to report a failure
+            in = store || share ? new RecordingInputStream(body, Integer.MAX_VALUE, true)
+                                : new RecordingInputStream(body, DESERIALIZATION_ERROR_PREFIX, false);
+            T result = null;
+            long parseStart = System.nanoTime();
+            try {
+                if (type!=null)
+                    result = setResponseHeaders(MAPPER.readerFor(type).<T>readValue(in));
+                else if (instance!=null)
+                    result = setResponseHeaders(MAPPER.readerForUpdating(instance).<T>readValue(in));
+            } catch (JsonMappingException e) {
+                throw (IOException)new IOException("Failed to deserialize " + in.getRecordedPrefix(DESERIALIZATION_ERROR_PREFIX)).initCause(e);
+            } finally {
+                if (event != null)
+                    event.parseTime += System.nanoTime() - parseStart;
             }
-            return null;
+            if (store || share)
+                in.close();
+            if (store) {
+                cache.put(cacheKey, new CachedResponse(uc.getHeaderField("ETag"),
+                        uc.getHeaderField("Last-Modified"), uc.getHeaderField("Link"), in.getRecorded()));
+            }
+            if (share)
+                recordedBody = in.getRecorded();
+            return result;
         } catch (FileNotFoundException e) {
             // java.net.URLConnection handles 404 exception has FileNotFoundException, don't wrap exception in HttpException
             // to preserve backward compatibility
@@ -633,11 +1329,13 @@ class Requester {
         } catch (IOException e) {
             if (e instanceof SocketTimeoutException && timeouts > 0) {
                 LOGGER.log(INFO, "timed out accessing " + uc.getURL() + "; will try " + timeouts + " more time(s)", e);
+                if (event != null)
+                    event.retryCount++;
                 return parse(type, instance, timeouts - 1);
             }
             throw new HttpException(responseCode, responseMessage, uc.getURL(), e);
         } finally {
-            IOUtils.closeQuietly(r);
+            IOUtils.closeQuietly(in);
         }
     }
 
@@ -656,24 +1354,217 @@ class Requester {
         readValue.responseHeaderFields = uc.getHeaderFields();
     }
 
+    /**
+     * Passes through the response body while remembering up to {@code limit} bytes of it,
+     * so that a deserialization failure can still show what the server sent,
+     * and so that a cacheable response can be stored without reading it twice.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream prefix;
+        private final int limit;
+        private final boolean drainOnClose;
+        private boolean truncated;
+        private boolean closed;
+
+        /**
+         * @param drainOnClose
+         *      If true, whatever the parser left behind is read and recorded when the stream is closed.
+         *      Jackson closes the stream as soon as it has the root value.
+         */
+        RecordingInputStream(InputStream in, int limit, boolean drainOnClose) {
+            super(in);
+            this.limit = limit;
+            this.drainOnClose = drainOnClose;
+            this.prefix = new ByteArrayOutputStream(Math.min(limit, 8192));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                if (prefix.size() < limit)
+                    prefix.write(b);
+                else
+                    truncated = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                record(b, off, n);
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void record(byte[] b, int off, int len) {
+            int room = limit - prefix.size();
+            if (len > room)
+                truncated = true;
+            if (room > 0)
+                prefix.write(b, off, Math.min(room, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                if (drainOnClose) {
+                    byte[] buf = new byte[8192];
+                    while (read(buf, 0, buf.length) >= 0) {
+                        // keep recording
+                    }
+                }
+            } finally {
+                super.close();
+            }
+        }
+
+        byte[] getRecorded() {
+            return prefix.toByteArray();
+        }
+
+        String getRecordedPrefix(int max) {
+            try {
+                String s = prefix.toString("UTF-8");
+                if (s.length() > max)
+                    return s.substring(0, max) + "...";
+                return truncated ? s + "..." : s;
+            } catch (UnsupportedEncodingException e) {
+                throw new AssertionError(e);    // UTF-8 is mandatory
+            }
+        }
+    }
+
     /**
      * Handles the "Content-Encoding" header.
      */
     private InputStream wrapStream(InputStream in) throws IOException {
         String encoding = uc.getContentEncoding();
+        if (in!=null && event!=null) in = new CountingInputStream(in, event, false);
         if (encoding==null || in==null) return in;
-        if (encoding.equals("gzip"))    return new GZIPInputStream(in);
+        if (encoding.equals("gzip")) {
+            in = new GZIPInputStream(in);
+            if (event!=null) {
+                event.compressed = true;
+                in = new CountingInputStream(in, event, true);
+            }
+            return in;
+        }
 
         throw new UnsupportedOperationException("Unexpected Content-Encoding: "+encoding);
     }
 
+    /**
+     * Reports the end of a request whose response body is read by the caller, when the body is closed.
+     */
+    private static class EventEndingInputStream extends FilterInputStream {
+        private final RequestListener listener;
+        private RequestEvent event;
+
+        EventEndingInputStream(InputStream in, RequestListener listener, RequestEvent event) {
+            super(in);
+            this.listener = listener;
+            this.event = event;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw fail(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw fail(e);
+            }
+        }
+
+        private IOException fail(IOException e) {
+            if (event != null)
+                event.failure = e;
+            return e;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (event != null) {
+                    event.end = System.nanoTime();
+                    listener.onEnd(event);
+                    event = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes of the response body for {@link RequestEvent}.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final RequestEvent event;
+        private final boolean decoded;
+
+        CountingInputStream(InputStream in, RequestEvent event, boolean decoded) {
+            super(in);
+            this.event = event;
+            this.decoded = decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                count(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) {
+            if (decoded)
+                event.bytesDecoded += n;
+            else
+                event.bytesRead += n;
+        }
+    }
+
     /**
      * Handle API error by either throwing it or by returning normally to retry.
      */
     /*package*/ void handleApiError(IOException e) throws IOException {
         int responseCode;
         try {
-            responseCode = uc.getResponseCode();
+            responseCode = receivedResponse(uc.getResponseCode());
         } catch (IOException e2) {
             // likely to be a network exception (e.g. SSLHandshakeException),
             // uc.getResponseCode() and any other getter on the response will cause an exception
@@ -704,7 +1595,9 @@ class Requester {
             throw e;
 
         if ("0".equals(uc.getHeaderField("X-RateLimit-Remaining"))) {
-            root.rateLimitHandler.onError(e,uc);
+            // retry right away if another token of the pool still has budget left
+            if (token == null || !root.tokenPool.failOver(token, rateLimitResource(uc.getURL()), System.currentTimeMillis()))
+                root.rateLimitHandler.onError(e,uc);
             return;
         }
 
@@ -719,5 +1612,19 @@ class Requester {
     }
 
     private static final List<String> METHODS_WITHOUT_BODY = asList("GET", "DELETE");
+    /*package*/ static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    /**
+     * One entry of the pagination "Link" header: the URL and its relation.
+     */
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>;\\s*rel=\"(\\w+)\"");
+    private static final Pattern PAGE_PARAMETER = Pattern.compile("([?&]page=)(\\d+)");
+    /**
+     * How much of the response body is kept to report a deserialization failure.
+     */
+    private static final int DESERIALIZATION_ERROR_PREFIX = 4096;
+    /**
+     * Delay before a failed {@linkplain #with(File) file upload} is first sent again, doubled for every retry.
+     */
+    private static final long RETRY_DELAY = 1000;
     private static final Logger LOGGER = Logger.getLogger(Requester.class.getName());
 }
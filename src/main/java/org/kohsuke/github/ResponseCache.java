@@ -0,0 +1,44 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Pluggable storage for the bodies of GET responses, so that repeated requests can be sent as
+ * conditional requests.
+ *
+ * <p>
+ * When a cache is configured, every GET request looks up the response it previously received for the same URL,
+ * sends its {@code ETag} as {@code If-None-Match} (or its {@code Last-Modified} as {@code If-Modified-Since}),
+ * and replays the stored body when GitHub answers with 304. Conditional requests answered with 304 do not
+ * count against the API rate limit.
+ *
+ * <p>
+ * Implementations must be safe for use by multiple threads concurrently.
+ *
+ * @see GitHubBuilder#withResponseCache(ResponseCache)
+ * @see <a href="https://developer.github.com/v3/#conditional-requests">Conditional requests</a>
+ * @see org.kohsuke.github.extras.InMemoryResponseCache
+ * @see org.kohsuke.github.extras.FileResponseCache
+ */
+public interface ResponseCache {
+    /**
+     * Looks up a previously stored response.
+     *
+     * @param key
+     *      Opaque key computed from the request URL, the media type and the credential in use.
+     * @return null if nothing is stored for this key.
+     */
+    @CheckForNull
+    CachedResponse get(String key);
+
+    /**
+     * Stores a response, replacing whatever was stored for the same key.
+     * Implementations are free to drop the response, for example when it is too large.
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * Forgets the response stored for this key, if any.
+     */
+    void remove(String key);
+}
@@ -0,0 +1,202 @@
+package org.kohsuke.github;
+
+import java.util.Date;
+
+/**
+ * Parsing and printing of the timestamps found in GitHub payloads, without {@link java.text.SimpleDateFormat}.
+ *
+ * <p>
+ * Understands {@code 2017-07-14T02:40:00Z}, optionally with fractional seconds or a numeric offset,
+ * and the older {@code 2017/07/14 02:40:00 +0000}. Nothing is allocated and no exception is thrown
+ * for input that doesn't fit; {@link #INVALID} is returned instead.
+ */
+/*package*/ final class Timestamps {
+    /**
+     * Returned by {@link #parse(String)} when the input isn't in one of the known formats.
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private Timestamps() {
+    }
+
+    /**
+     * @return milliseconds since the epoch, or {@link #INVALID}.
+     */
+    static long parse(String s) {
+        int len = s.length();
+        if (len < 20)
+            return INVALID;
+
+        boolean iso;
+        char c = s.charAt(4);
+        if (c == '-' && s.charAt(7) == '-' && s.charAt(10) == 'T')
+            iso = true;
+        else if (c == '/' && s.charAt(7) == '/' && s.charAt(10) == ' ')
+            iso = false;
+        else
+            return INVALID;
+        if (s.charAt(13) != ':' || s.charAt(16) != ':')
+            return INVALID;
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60)
+            return INVALID;
+
+        int pos = 19;
+        int millis = 0;
+        if (iso && s.charAt(pos) == '.') {
+            int scale = 100;
+            for (pos++; pos < len && isDigit(s.charAt(pos)); pos++) {
+                millis += (s.charAt(pos) - '0') * scale;
+                scale /= 10;
+            }
+        }
+
+        int offset;
+        if (!iso) {
+            if (s.charAt(pos++) != ' ')
+                return INVALID;
+        }
+        if (pos >= len)
+            return INVALID;
+        c = s.charAt(pos);
+        if (iso && c == 'Z' && pos + 1 == len) {
+            offset = 0;
+        } else if (c == '+' || c == '-') {
+            int hh = digits(s, pos + 1, 2);
+            int mm;
+            if (len == pos + 5)
+                mm = digits(s, pos + 3, 2);
+            else if (iso && len == pos + 6 && s.charAt(pos + 3) == ':')
+                mm = digits(s, pos + 4, 2);
+            else
+                return INVALID;
+            if (hh < 0 || mm < 0)
+                return INVALID;
+            offset = (hh * 60 + mm) * 60 * 1000;
+            if (c == '-')
+                offset = -offset;
+        } else {
+            return INVALID;
+        }
+
+        long seconds = ((epochDay(year, month, day) * 24 + hour) * 60 + minute) * 60 + second;
+        return seconds * 1000 + millis - offset;
+    }
+
+    /**
+     * Prints the timestamp in UTC, as {@code 2017-07-14T02:40:00Z}.
+     */
+    static String print(long time) {
+        long days = time / MILLIS_PER_DAY;
+        long millisOfDay = time % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
+        }
+        int secondOfDay = (int) (millisOfDay / 1000);
+
+        // the inverse of epochDay()
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] buf = new char[20];
+        put(buf, 0, (int) year, 4);
+        buf[4] = '-';
+        put(buf, 5, month, 2);
+        buf[7] = '-';
+        put(buf, 8, day, 2);
+        buf[10] = 'T';
+        put(buf, 11, secondOfDay / 3600, 2);
+        buf[13] = ':';
+        put(buf, 14, secondOfDay / 60 % 60, 2);
+        buf[16] = ':';
+        put(buf, 17, secondOfDay % 60, 2);
+        buf[19] = 'Z';
+        return new String(buf);
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar.
+     * See http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int digits(String s, int pos, int count) {
+        if (pos + count > s.length())
+            return -1;
+        int v = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c))
+                return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void put(char[] buf, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * A timestamp parsed from a payload field, kept along with the text it came from, so that
+     * the field only needs to be parsed again if it gets a new value.
+     */
+    static final class Parsed {
+        private final String text;
+        private final long time;
+
+        private Parsed(String text, long time) {
+            this.text = text;
+            this.time = time;
+        }
+
+        /**
+         * @param cached
+         *      What the field was parsed into last time, if anything.
+         * @return
+         *      {@code cached} if it still matches {@code text}, or null if {@code text} is null.
+         */
+        static Parsed of(String text, Parsed cached) {
+            if (text == null)
+                return null;
+            if (cached != null && cached.text.equals(text))
+                return cached;
+            return new Parsed(text, GitHub.parseDateMillis(text));
+        }
+
+        static Date toDate(Parsed p) {
+            return p == null ? null : new Date(p.time);
+        }
+    }
+}
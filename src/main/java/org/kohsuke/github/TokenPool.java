@@ -0,0 +1,236 @@
+package org.kohsuke.github;
+
+import org.kohsuke.github.RateLimitScheduler.Resource;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several OAuth or installation tokens that a {@link GitHub} spreads its requests over, so that their
+ * rate limits add up.
+ *
+ * <p>
+ * Each request is sent with the token that has the most budget left, as last reported by GitHub.
+ * When a token turns out to be exhausted, the request is retried right away with another one, and
+ * only when all of them are exhausted does the {@link RateLimitHandler} get involved.
+ *
+ * @see GitHubBuilder#withTokenPool(TokenPool)
+ */
+public class TokenPool {
+    private final List<Token> tokens;
+
+    public TokenPool(String... tokens) {
+        this(Arrays.asList(tokens));
+    }
+
+    public TokenPool(Collection<String> tokens) {
+        if (tokens.isEmpty())
+            throw new IllegalArgumentException("At least one token is required");
+        List<Token> list = new ArrayList<Token>(tokens.size());
+        for (String token : tokens) {
+            list.add(new Token(token, list.size() + 1));
+        }
+        this.tokens = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Tokens of this pool, whose usage can be monitored.
+     */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Picks the token to send a request with, and counts the request against it.
+     */
+    /*package*/ synchronized Token select(Resource resource, long now) {
+        Token best = null;
+        long bestRemaining = -1;
+        long bestReset = Long.MAX_VALUE;
+        for (Token t : tokens) {
+            Budget b = t.budget(resource);
+            long remaining = b.remaining(now);
+            // among exhausted tokens, the one that resets first
+            if (remaining > bestRemaining || remaining == 0 && bestRemaining == 0 && b.reset < bestReset) {
+                best = t;
+                bestRemaining = remaining;
+                bestReset = b.reset;
+            }
+        }
+        assert best != null;
+        best.budget(resource).reserve(now);
+        best.requests.incrementAndGet();
+        return best;
+    }
+
+    /**
+     * Records the rate limit reported for a token.
+     *
+     * @return the combined rate limit of the pool: what all tokens have left, until the first of them resets.
+     *      Tokens that haven't been used yet, or whose limit has been reset since, count as if they had it all left.
+     */
+    /*package*/ synchronized GHRateLimit update(Token token, GHRateLimit observed, Resource resource, long now) {
+        token.budget(resource).update(observed);
+
+        GHRateLimit pooled = new GHRateLimit();
+        long reset = Long.MAX_VALUE;
+        for (Token t : tokens) {
+            Budget b = t.budget(resource);
+            int limit = b.known ? b.limit : observed.limit;
+            pooled.limit += limit;
+            if (b.known && now < b.reset) {
+                pooled.remaining += b.remaining;
+                reset = Math.min(reset, b.reset);
+            } else {
+                pooled.remaining += limit;
+            }
+        }
+        if (reset == Long.MAX_VALUE)
+            reset = observed.getResetDate().getTime();
+        pooled.reset = new Date(reset / 1000); // GHRateLimit keeps the epoch seconds in a Date
+        return pooled;
+    }
+
+    /**
+     * Called when GitHub refused a request because the token's rate limit was reached.
+     *
+     * @return true if another token has budget left, and so the request should be retried.
+     */
+    /*package*/ synchronized boolean failOver(Token token, Resource resource, long now) {
+        token.budget(resource).exhaust(now);
+        for (Token t : tokens) {
+            if (t != token && t.budget(resource).remaining(now) > 0) {
+                token.failovers.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One token of the pool.
+     */
+    public final class Token {
+        /*package*/ final String encodedAuthorization;
+        private final String name;
+        private final Budget core = new Budget();
+        private final Budget search = new Budget();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failovers = new AtomicLong();
+
+        private Token(String token, int position) {
+            this.encodedAuthorization = "token " + token;
+            // the last characters of a short token would give away too much of it
+            this.name = token.length() >= MIN_NAMED_LENGTH ? "..." + token.substring(token.length() - 4) : "#" + position;
+        }
+
+        /**
+         * Identifies the token without giving it away: only its last four characters are kept, or,
+         * for a token too short for that, its position in the pool, starting from 1.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Number of requests sent with this token.
+         */
+        public long getRequestCount() {
+            return requests.get();
+        }
+
+        /**
+         * Number of times GitHub refused a request sent with this token because its rate limit was reached,
+         * and another token had to take over.
+         */
+        public long getFailoverCount() {
+            return failovers.get();
+        }
+
+        /**
+         * Last rate limit reported for this token, or {@code null} if it hasn't been used against that resource yet.
+         */
+        @CheckForNull
+        public GHRateLimit getRateLimit(Resource resource) {
+            synchronized (TokenPool.this) {
+                return budget(resource).toRateLimit();
+            }
+        }
+
+        private Budget budget(Resource resource) {
+            return resource == Resource.SEARCH ? search : core;
+        }
+
+        @Override
+        public String toString() {
+            return "Token{" + name + ", requests=" + requests + ", failovers=" + failovers + '}';
+        }
+    }
+
+    /**
+     * What is left of a token's rate limit. Guarded by the pool.
+     */
+    private static final class Budget {
+        private boolean known;
+        private int limit;
+        private int remaining;
+        /**
+         * In milliseconds.
+         */
+        private long reset;
+
+        long remaining(long now) {
+            if (!known || now >= reset)
+                return Integer.MAX_VALUE;   // untried tokens go first, so that we learn about their budget
+            return remaining;
+        }
+
+        void reserve(long now) {
+            if (known && now < reset && remaining > 0)
+                remaining--;
+        }
+
+        void update(GHRateLimit observed) {
+            long observedReset = observed.getResetDate().getTime();
+            if (!known || observedReset > reset) {
+                known = true;
+                reset = observedReset;
+                remaining = observed.remaining;
+            } else {
+                // requests still in flight may not have been counted by GitHub yet
+                remaining = Math.min(remaining, observed.remaining);
+            }
+            limit = observed.limit;
+        }
+
+        void exhaust(long now) {
+            if (!known || now >= reset) {
+                // the response headers will tell exactly when, this is just until then
+                known = true;
+                reset = now + 60 * 1000;
+            }
+            remaining = 0;
+        }
+
+        GHRateLimit toRateLimit() {
+            if (!known)
+                return null;
+            GHRateLimit r = new GHRateLimit();
+            r.limit = limit;
+            r.remaining = remaining;
+            r.reset = new Date(reset / 1000); // GHRateLimit keeps the epoch seconds in a Date
+            return r;
+        }
+    }
+
+    /**
+     * Length from which a token is long enough to be named after its last four characters.
+     */
+    private static final int MIN_NAMED_LENGTH = 16;
+}
@@ -0,0 +1,210 @@
+package org.kohsuke.github;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.kohsuke.github.GHTreeChange.Status.*;
+
+/**
+ * Finds the files that differ between two trees without asking GitHub for a comparison.
+ *
+ * <p>
+ * Trees are content-addressed, so a subtree that has the same SHA on both sides is skipped
+ * without being fetched. The walk goes one level at a time, fetching the trees of a level
+ * concurrently through {@link GitHub#async()}. A subtree that only exists on one side is fetched
+ * recursively in one go. Fetched trees are kept in {@link GitHub#trees}, since they never change,
+ * so comparing nearby commits again mostly costs nothing.
+ *
+ * @see GHRepository#getTreeChanges(String, String)
+ */
+/*package*/ final class TreeDiff {
+    private final GHRepository repo;
+    private final IdentityCache<GHTree> cache;
+    private final List<GHTreeChange> changes = new ArrayList<GHTreeChange>();
+    /**
+     * Trees of the current level being fetched, by SHA and whether they are fetched recursively.
+     */
+    private final Map<String, Future<GHTree>> fetches = new HashMap<String, Future<GHTree>>();
+
+    TreeDiff(GHRepository repo) {
+        this.repo = repo;
+        this.cache = repo.root.trees;
+    }
+
+    /**
+     * @return the changes, sorted by path.
+     */
+    List<GHTreeChange> compare(String base, String head) throws IOException {
+        if (base.equals(head))
+            return Collections.emptyList();
+        List<Step> level = Collections.singletonList(new Step("", base, head));
+        try {
+            while (!level.isEmpty()) {
+                for (Step s : level) {
+                    if (s.base != null)
+                        prefetch(s.base, s.head == null);
+                    if (s.head != null)
+                        prefetch(s.head, s.base == null);
+                }
+                List<Step> next = new ArrayList<Step>();
+                for (Step s : level) {
+                    s.compare(next);
+                }
+                fetches.clear();
+                level = next;
+            }
+        } finally {
+            for (Future<GHTree> f : fetches.values()) {
+                f.cancel(false);
+            }
+        }
+        Collections.sort(changes, BY_PATH);
+        return changes;
+    }
+
+    /**
+     * A pair of subtrees to compare, either of which may be missing.
+     */
+    private final class Step {
+        /**
+         * Path of the subtree followed by a slash, or "" at the top.
+         */
+        private final String prefix;
+        private final String base, head;
+
+        Step(String prefix, @CheckForNull String base, @CheckForNull String head) {
+            this.prefix = prefix;
+            this.base = base;
+            this.head = head;
+        }
+
+        void compare(List<Step> next) throws IOException {
+            if (base == null) {
+                everything(head, ADDED, next);
+            } else if (head == null) {
+                everything(base, REMOVED, next);
+            } else {
+                Map<String, GHTreeEntry> baseEntries = new LinkedHashMap<String, GHTreeEntry>();
+                for (GHTreeEntry b : tree(base, false).getTree()) {
+                    baseEntries.put(b.getPath(), b);
+                }
+                for (GHTreeEntry h : tree(head, false).getTree()) {
+                    GHTreeEntry b = baseEntries.remove(h.getPath());
+                    if (b == null) {
+                        only(h, ADDED, next);
+                    } else if (isTree(b) && isTree(h)) {
+                        if (!b.getSha().equals(h.getSha()))
+                            next.add(new Step(prefix + h.getPath() + '/', b.getSha(), h.getSha()));
+                    } else if (isTree(b) || isTree(h)) {
+                        // a directory replaced by a file, or the other way round
+                        only(b, REMOVED, next);
+                        only(h, ADDED, next);
+                    } else if (!b.getSha().equals(h.getSha()) || !b.getMode().equals(h.getMode())) {
+                        changes.add(new GHTreeChange(prefix + h.getPath(), MODIFIED, b, h));
+                    }
+                }
+                for (GHTreeEntry b : baseEntries.values()) {
+                    only(b, REMOVED, next);
+                }
+            }
+        }
+
+        /**
+         * Reports every file of a subtree that only exists on one side.
+         */
+        private void everything(String sha, GHTreeChange.Status status, List<Step> next) throws IOException {
+            GHTree all = tree(sha, true);
+            if (all.isTruncated()) {
+                // too large to get at once, so go down one level at a time
+                for (GHTreeEntry e : tree(sha, false).getTree()) {
+                    only(e, status, next);
+                }
+                return;
+            }
+            for (GHTreeEntry e : all.getTree()) {
+                if (!isTree(e))
+                    changes.add(change(prefix + e.getPath(), status, e));
+            }
+        }
+
+        /**
+         * Reports an entry that only exists on one side.
+         */
+        private void only(GHTreeEntry e, GHTreeChange.Status status, List<Step> next) {
+            if (isTree(e)) {
+                String path = prefix + e.getPath() + '/';
+                next.add(status == ADDED ? new Step(path, null, e.getSha()) : new Step(path, e.getSha(), null));
+            } else {
+                changes.add(change(prefix + e.getPath(), status, e));
+            }
+        }
+    }
+
+    private static GHTreeChange change(String path, GHTreeChange.Status status, GHTreeEntry e) {
+        return status == ADDED ? new GHTreeChange(path, ADDED, null, e) : new GHTreeChange(path, REMOVED, e, null);
+    }
+
+    private static boolean isTree(GHTreeEntry e) {
+        return "tree".equals(e.getType());
+    }
+
+    private void prefetch(final String sha, final boolean recursive) {
+        String key = cacheKey(sha, recursive);
+        if (fetches.containsKey(sha + recursive) || (key != null && cache.get(key) != null))
+            return;
+        fetches.put(sha + recursive, repo.root.async().fork(new Callable<GHTree>() {
+            public GHTree call() throws IOException {
+                return fetch(sha, recursive);
+            }
+        }));
+    }
+
+    private GHTree tree(String sha, boolean recursive) throws IOException {
+        String key = cacheKey(sha, recursive);
+        Future<GHTree> f = fetches.get(sha + recursive);
+        GHTree t = f != null ? AsyncGitHub.await(f) : key != null ? cache.get(key) : null;
+        if (t == null)
+            t = fetch(sha, recursive);  // evicted since it was looked at
+        if (key != null)
+            cache.put(key, t);
+        return t;
+    }
+
+    /**
+     * Fetches a tree without completing it if it is truncated, since that would wait on
+     * {@link GitHub#async()} from one of its own threads.
+     */
+    private GHTree fetch(String sha, boolean recursive) throws IOException {
+        return recursive ? repo.retrieveTreeRecursive(sha, 1) : repo.getTree(sha);
+    }
+
+    /**
+     * Only trees named by SHA-1 are cached, as a branch name can point elsewhere the next time.
+     *
+     * @return null if the tree must not be cached.
+     */
+    @CheckForNull
+    private String cacheKey(String sha, boolean recursive) {
+        if (!SHA1.matcher(sha).matches())
+            return null;
+        return repo.getFullName() + '@' + sha + (recursive ? "?recursive" : "");
+    }
+
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+
+    private static final Comparator<GHTreeChange> BY_PATH = new Comparator<GHTreeChange>() {
+        public int compare(GHTreeChange a, GHTreeChange b) {
+            return a.getPath().compareTo(b.getPath());
+        }
+    };
+}
@@ -0,0 +1,398 @@
+package org.kohsuke.github;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+import javax.annotation.CheckForNull;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Receives webhook deliveries and hands them to the handlers registered for their payload type.
+ *
+ * <p>
+ * The HTTP endpoint receiving the hooks passes on the {@code X-GitHub-Event}, {@code X-GitHub-Delivery}
+ * and {@code X-Hub-Signature-256} (or {@code X-Hub-Signature}) headers along with the raw body, and answers
+ * according to the returned {@link Result}. The signature is checked on the calling thread, while the
+ * payload is parsed and handled on a pool of threads, so the endpoint can answer GitHub right away.
+ *
+ * <p>
+ * At most a fixed number of deliveries wait to be handled. Beyond that, {@link #dispatch} waits for room
+ * for a while, which slows down the endpoint, and then gives up with {@link Result#OVERLOADED}.
+ * A delivery that was already accepted recently, such as one redelivered from the GitHub UI, is dropped,
+ * unless a handler failed on it. In that case only the handlers that failed get it again.
+ *
+ * <pre>
+ * WebhookDispatcher hooks = new WebhookDispatcher(gitHub, secret);
+ * hooks.on(GHEventPayload.Push.class, new WebhookDispatcher.Handler&lt;GHEventPayload.Push&gt;() {
+ *     public void onDelivery(String deliveryId, GHEventPayload.Push push) throws IOException {
+ *         ...
+ *     }
+ * });
+ * </pre>
+ *
+ * @see GitHub#parseEventPayload(java.io.Reader, Class)
+ * @see <a href="https://developer.github.com/webhooks/securing/">Securing your webhooks</a>
+ */
+public class WebhookDispatcher implements Closeable {
+    /**
+     * What became of a delivery.
+     */
+    public enum Result {
+        /**
+         * Queued to be handled. Answer with 202.
+         */
+        ACCEPTED,
+        /**
+         * Nothing is registered for this event. Answer with 204.
+         */
+        IGNORED,
+        /**
+         * This delivery was accepted before. Answer with 200.
+         */
+        DUPLICATE,
+        /**
+         * The signature is missing or doesn't match the secret. Answer with 401.
+         */
+        UNAUTHORIZED,
+        /**
+         * Too many deliveries are waiting to be handled. Answer with 503.
+         */
+        OVERLOADED
+    }
+
+    /**
+     * Handles the deliveries of one payload type. Called from the threads of the dispatcher.
+     */
+    public interface Handler<T extends GHEventPayload> {
+        void onDelivery(String deliveryId, T payload) throws IOException;
+    }
+
+    private final GitHub root;
+    @CheckForNull
+    private final Signer sha1, sha256;
+    private final List<Registration<?>> registrations = new CopyOnWriteArrayList<Registration<?>>();
+    /**
+     * Room for deliveries being handled or waiting to be.
+     */
+    private final Semaphore capacity;
+    private final ExecutorService executor;
+    /**
+     * The deliveries accepted lately, by id, guarded by itself.
+     */
+    private final RecentDeliveries recent = new RecentDeliveries();
+
+    /**
+     * @param secret
+     *      Secret the hooks were configured with, or null to accept deliveries without checking their signature.
+     */
+    public WebhookDispatcher(GitHub root, @CheckForNull String secret) {
+        this(root, secret, DEFAULT_THREADS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param secret
+     *      Secret the hooks were configured with, or null to accept deliveries without checking their signature.
+     * @param threads
+     *      Number of deliveries handled at the same time.
+     * @param capacity
+     *      Number of deliveries that can be accepted before they are handled, on top of those being handled.
+     */
+    public WebhookDispatcher(GitHub root, @CheckForNull String secret, int threads, int capacity) {
+        if (threads < 1 || capacity < 0)
+            throw new IllegalArgumentException("Need at least one thread and no negative capacity");
+        this.root = root;
+        if (secret != null) {
+            byte[] key = utf8(secret);
+            sha1 = new Signer("HmacSHA1", key);
+            sha256 = new Signer("HmacSHA256", key);
+        } else {
+            sha1 = sha256 = null;
+        }
+        this.capacity = new Semaphore(threads + capacity);
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("github-api webhooks"));
+    }
+
+    /**
+     * Registers a handler for the deliveries whose payload is of the given type, or a subtype of it.
+     * Handlers registered for {@link GHEventPayload} get all the deliveries.
+     */
+    public <T extends GHEventPayload> WebhookDispatcher on(Class<T> type, Handler<? super T> handler) {
+        registrations.add(new Registration<T>(type, handler));
+        return this;
+    }
+
+    /**
+     * Checks a delivery and queues it to be handled.
+     *
+     * @param event
+     *      Value of the {@code X-GitHub-Event} header. Deliveries without it are ignored.
+     * @param deliveryId
+     *      Value of the {@code X-GitHub-Delivery} header.
+     * @param signature
+     *      Value of the {@code X-Hub-Signature-256} header, or of the {@code X-Hub-Signature} header if there's none.
+     * @param body
+     *      Body of the request, as received.
+     */
+    public Result dispatch(@CheckForNull String event, String deliveryId, @CheckForNull String signature, byte[] body) throws InterruptedException {
+        if (!isAuthentic(signature, body))
+            return Result.UNAUTHORIZED;
+
+        final GHEvent type = toEvent(event);
+        if (type == null || !isHandled(type.payloadType()))
+            return Result.IGNORED;
+
+        Handled handled = remember(deliveryId);
+        if (handled == null)
+            return Result.DUPLICATE;
+
+        boolean room = false;
+        try {
+            room = capacity.tryAcquire(DISPATCH_TIMEOUT, MILLISECONDS);
+        } finally {
+            if (!room)
+                retry(handled);
+        }
+        if (!room)
+            return Result.OVERLOADED;
+        try {
+            executor.execute(new Delivery(type, deliveryId, body, handled));
+        } catch (RejectedExecutionException e) {
+            // closed
+            capacity.release();
+            retry(handled);
+            return Result.OVERLOADED;
+        }
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Stops accepting deliveries. Those already accepted are still handled.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    private boolean isAuthentic(@CheckForNull String signature, byte[] body) {
+        if (sha1 == null || sha256 == null)
+            return true;
+        if (signature == null)
+            return false;
+        int eq = signature.indexOf('=');
+        if (eq < 0)
+            return false;
+        String algorithm = signature.substring(0, eq);
+        Signer signer = algorithm.equals("sha256") ? sha256 : algorithm.equals("sha1") ? sha1 : null;
+        if (signer == null)
+            return false;
+        byte[] expected;
+        try {
+            expected = Hex.decodeHex(signature.substring(eq + 1).toCharArray());
+        } catch (DecoderException e) {
+            return false;
+        }
+        // in constant time, so that timing doesn't tell how much of a forged signature is right
+        return MessageDigest.isEqual(expected, signer.get().doFinal(body));
+    }
+
+    @CheckForNull
+    private static GHEvent toEvent(@CheckForNull String event) {
+        if (event == null)
+            return null;
+        try {
+            return GHEvent.valueOf(event.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isHandled(@CheckForNull Class<? extends GHEventPayload> type) {
+        if (type == null)
+            return false;
+        for (Registration<?> r : registrations) {
+            if (r.type.isAssignableFrom(type))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return what became of the delivery so far, or null if it was accepted before and is not to be handled again.
+     */
+    @CheckForNull
+    private Handled remember(String deliveryId) {
+        synchronized (recent) {
+            Handled h = recent.get(deliveryId);
+            if (h == null) {
+                h = new Handled();
+                recent.put(deliveryId, h);
+                return h;
+            }
+            if (!h.retry)
+                return null;
+            h.retry = false;
+            return h;
+        }
+    }
+
+    /**
+     * Lets the delivery be accepted again, as not every handler got it.
+     */
+    private void retry(Handled handled) {
+        synchronized (recent) {
+            handled.retry = true;
+        }
+    }
+
+    /**
+     * Which handlers are done with a delivery, guarded by {@link #recent}.
+     */
+    private static final class Handled {
+        final Set<Registration<?>> done = new HashSet<Registration<?>>();
+        /**
+         * Whether the delivery is to be accepted again if it comes back.
+         */
+        boolean retry;
+    }
+
+    /**
+     * A delivery being parsed and handled.
+     */
+    private final class Delivery implements Runnable {
+        private final GHEvent event;
+        private final String id;
+        private final byte[] body;
+        private final Handled handled;
+
+        Delivery(GHEvent event, String id, byte[] body, Handled handled) {
+            this.event = event;
+            this.id = id;
+            this.body = body;
+            this.handled = handled;
+        }
+
+        public void run() {
+            try {
+                GHEventPayload payload = GHEventPayload.readerFor(event.payloadType()).readValue(body);
+                payload.wrapUp(root);
+                boolean failed = false;
+                for (Registration<?> r : registrations) {
+                    synchronized (recent) {
+                        if (handled.done.contains(r))
+                            continue;
+                    }
+                    try {
+                        r.deliver(id, payload);
+                        synchronized (recent) {
+                            handled.done.add(r);
+                        }
+                    } catch (IOException e) {
+                        LOGGER.log(WARNING, "Failed to handle the " + event + " delivery " + id, e);
+                        failed = true;
+                    } catch (RuntimeException e) {
+                        LOGGER.log(WARNING, "Failed to handle the " + event + " delivery " + id, e);
+                        failed = true;
+                    }
+                }
+                if (failed)
+                    retry(handled);
+            } catch (IOException e) {
+                // redelivering the same body wouldn't help
+                LOGGER.log(WARNING, "Failed to parse the " + event + " delivery " + id, e);
+            } finally {
+                capacity.release();
+            }
+        }
+    }
+
+    private static final class Registration<T extends GHEventPayload> {
+        private final Class<T> type;
+        private final Handler<? super T> handler;
+
+        Registration(Class<T> type, Handler<? super T> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        void deliver(String deliveryId, GHEventPayload payload) throws IOException {
+            if (type.isInstance(payload))
+                handler.onDelivery(deliveryId, type.cast(payload));
+        }
+    }
+
+    /**
+     * One {@link Mac} per thread, as they can't be shared.
+     */
+    private static final class Signer extends ThreadLocal<Mac> {
+        private final String algorithm;
+        private final byte[] key;
+
+        Signer(String algorithm, byte[] key) {
+            this.algorithm = algorithm;
+            this.key = key;
+        }
+
+        @Override
+        protected Mac initialValue() {
+            try {
+                Mac mac = Mac.getInstance(algorithm);
+                mac.init(new SecretKeySpec(key, algorithm));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new AssertionError(e);    // both are mandatory
+            }
+        }
+    }
+
+    /**
+     * The deliveries accepted lately, by id, oldest first.
+     */
+    private static final class RecentDeliveries extends LinkedHashMap<String, Handled> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Handled> eldest) {
+            return size() > DEDUPLICATION_WINDOW;
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);    // UTF-8 is mandatory
+        }
+    }
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_CAPACITY = 1000;
+    /**
+     * How long {@link #dispatch} waits for room, in milliseconds. GitHub gives up on a delivery after 10 seconds.
+     */
+    private static final long DISPATCH_TIMEOUT = 5000;
+    /**
+     * Number of delivery ids remembered to drop duplicates.
+     */
+    private static final int DEDUPLICATION_WINDOW = 10000;
+    private static final Logger LOGGER = Logger.getLogger(WebhookDispatcher.class.getName());
+}
@@ -0,0 +1,186 @@
+package org.kohsuke.github.extras;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.github.CachedResponse;
+import org.kohsuke.github.ResponseCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * {@link ResponseCache} that keeps one file per response in a directory, so that validators survive restarts.
+ *
+ * <p>
+ * Files are evicted in least-recently-used order once their total size goes over the given budget.
+ * The directory should not be shared between concurrently running processes.
+ *
+ * @see org.kohsuke.github.GitHubBuilder#withResponseCache(ResponseCache)
+ */
+public class FileResponseCache implements ResponseCache {
+    private final File dir;
+    private final long maxSize;
+    private long size;
+
+    /**
+     * File name to file size, in access order.
+     */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /**
+     * @param dir
+     *      Directory to keep the responses in. Created if missing. Responses left there by an earlier run are reused.
+     * @param maxSize
+     *      Upper bound of the total size of the files, in bytes.
+     */
+    public FileResponseCache(File dir, long maxSize) throws IOException {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Failed to create " + dir);
+        this.dir = dir;
+        this.maxSize = maxSize;
+
+        File[] files = dir.listFiles(new FileFilter() {
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().endsWith(SUFFIX);
+            }
+        });
+        if (files != null) {
+            // oldest first, so that the access order picks up where the previous run left off
+            Arrays.sort(files, new Comparator<File>() {
+                public int compare(File a, File b) {
+                    long x = a.lastModified(), y = b.lastModified();
+                    return x < y ? -1 : x == y ? 0 : 1;
+                }
+            });
+            for (File f : files) {
+                index.put(f.getName(), f.length());
+                size += f.length();
+            }
+        }
+        evict();
+    }
+
+    public synchronized CachedResponse get(String key) {
+        String name = fileName(key);
+        if (index.get(name) == null)
+            return null;
+        File f = new File(dir, name);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            if (in.readInt() != MAGIC)
+                throw new IOException("Unexpected file format");
+            String etag = readNullable(in);
+            String lastModified = readNullable(in);
+            String link = readNullable(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(etag, lastModified, link, body);
+        } catch (IOException e) {
+            LOGGER.log(FINE, "Dropping unreadable cached response " + f, e);
+            delete(name);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    public synchronized void put(String key, CachedResponse response) {
+        String name = fileName(key);
+        delete(name);
+
+        File tmp = new File(dir, name + ".tmp");
+        File f = new File(dir, name);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            writeNullable(out, response.getETag());
+            writeNullable(out, response.getLastModified());
+            writeNullable(out, response.getLink());
+            out.writeInt(response.getBody().length);
+            out.write(response.getBody());
+            out.close();
+            out = null;
+            if (!tmp.renameTo(f))
+                throw new IOException("Failed to rename " + tmp + " to " + f);
+        } catch (IOException e) {
+            LOGGER.log(FINE, "Failed to cache the response in " + f, e);
+            delete(tmp);
+            return;
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+
+        index.put(name, f.length());
+        size += f.length();
+        evict();
+    }
+
+    public synchronized void remove(String key) {
+        delete(fileName(key));
+    }
+
+    /**
+     * Number of bytes currently held on disk.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void delete(String name) {
+        Long old = index.remove(name);
+        if (old != null)
+            size -= old;
+        delete(new File(dir, name));
+    }
+
+    private void evict() {
+        for (Iterator<Map.Entry<String, Long>> itr = index.entrySet().iterator(); size > maxSize && itr.hasNext();) {
+            Map.Entry<String, Long> e = itr.next();
+            size -= e.getValue();
+            itr.remove();
+            delete(new File(dir, e.getKey()));
+        }
+    }
+
+    private static void delete(File f) {
+        if (!f.delete() && f.exists())
+            LOGGER.log(FINE, "Failed to delete {0}", f);
+    }
+
+    private static String fileName(String key) {
+        return DigestUtils.sha1Hex(key) + SUFFIX;
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final String SUFFIX = ".response";
+    private static final int MAGIC = 0x47484331; // "GHC1"
+    private static final Logger LOGGER = Logger.getLogger(FileResponseCache.class.getName());
+}
@@ -0,0 +1,61 @@
+package org.kohsuke.github.extras;
+
+import org.kohsuke.github.CachedResponse;
+import org.kohsuke.github.ResponseCache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ResponseCache} that keeps responses on the heap, evicting the least recently used ones
+ * once the total size goes over the given budget.
+ *
+ * @see org.kohsuke.github.GitHubBuilder#withResponseCache(ResponseCache)
+ */
+public class InMemoryResponseCache implements ResponseCache {
+    private final long maxSize;
+    private long size;
+    private final LinkedHashMap<String, CachedResponse> entries =
+            new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+
+    /**
+     * @param maxSize
+     *      Upper bound of the cache, in bytes. Responses larger than this are not kept at all.
+     */
+    public InMemoryResponseCache(long maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        this.maxSize = maxSize;
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, CachedResponse response) {
+        remove(key);
+        if (response.size() > maxSize)
+            return;
+        entries.put(key, response);
+        size += response.size();
+
+        for (Iterator<Map.Entry<String, CachedResponse>> itr = entries.entrySet().iterator(); size > maxSize && itr.hasNext();) {
+            size -= itr.next().getValue().size();
+            itr.remove();
+        }
+    }
+
+    public synchronized void remove(String key) {
+        CachedResponse old = entries.remove(key);
+        if (old != null)
+            size -= old.size();
+    }
+
+    /**
+     * Number of bytes currently held, as counted by {@link CachedResponse#size()}.
+     */
+    public synchronized long size() {
+        return size;
+    }
+}
@@ -16,6 +16,25 @@ import java.net.URL;
  * response does not count against the rate limit.
  * See http://developer.github.com/v3/#conditional-requests
  *
+ * <p>
+ * OkHttp can also speak HTTP/2 to {@code https} endpoints, so that concurrent requests to the same host,
+ * for example those issued through {@link org.kohsuke.github.GitHub#async()}, are multiplexed over a single
+ * connection instead of paying a TLS handshake each. HTTP/2 is negotiated through ALPN, which OkHttp 3.9
+ * takes from the platform: it needs Java 9 or later, or the Jetty ALPN boot jar or Conscrypt on Java 8.
+ * Without ALPN, OkHttp silently falls back to HTTP/1.1 with a pool of keep-alive connections.
+ * This connector does nothing HTTP/2 specific itself; the protocols and the pool are set up on the client:
+ *
+ * <pre>
+ * OkHttpClient client = new OkHttpClient.Builder()
+ *         .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+ *         .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+ *         .build();
+ * GitHub gitHub = new GitHubBuilder().withConnector(new OkHttp3Connector(new OkUrlFactory(client))).build();
+ * </pre>
+ *
+ * The protocol list above is the default; listing only {@link okhttp3.Protocol#HTTP_1_1} turns HTTP/2 off.
+ * Which protocol a response came over can be checked with {@code Response.protocol()} on a plain OkHttp call.
+ *
  * @author Roberto Tyley
  * @author Kohsuke Kawaguchi
  */
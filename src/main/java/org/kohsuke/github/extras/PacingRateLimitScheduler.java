@@ -0,0 +1,132 @@
+package org.kohsuke.github.extras;
+
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.RateLimitScheduler;
+import org.kohsuke.github.RequestPriority;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * {@link RateLimitScheduler} that spreads the remaining budget evenly over the rest of the rate limit window.
+ *
+ * <p>
+ * Each budget works like a token bucket that refills at the rate which would use up the remaining
+ * requests exactly when the window resets. Up to {@code burst} requests can go out back to back before
+ * pacing kicks in. {@link RequestPriority#INTERACTIVE} requests are never paced, and
+ * {@link RequestPriority#BATCH} requests leave a share of the limit to the other priorities.
+ * Once a priority has run out of budget, its requests wait for the window to reset.
+ *
+ * <p>
+ * The budget is counted down as requests are sent, so concurrent threads don't all rush in
+ * on a stale remaining count, and is corrected by what GitHub reports back.
+ * Share one instance among all the {@link org.kohsuke.github.GitHub} instances that use the same credential.
+ */
+public class PacingRateLimitScheduler extends RateLimitScheduler {
+    private final int burst;
+    private final float batchReserve;
+    private final Budget core = new Budget();
+    private final Budget search = new Budget();
+
+    public PacingRateLimitScheduler() {
+        this(DEFAULT_BURST, DEFAULT_BATCH_RESERVE);
+    }
+
+    /**
+     * @param burst
+     *      Number of requests that can be sent without any delay when they have been spaced out before.
+     * @param batchReserve
+     *      Share of the limit, between 0 and 1, that {@link RequestPriority#BATCH} requests don't use.
+     */
+    public PacingRateLimitScheduler(int burst, float batchReserve) {
+        if (burst < 0 || batchReserve < 0 || batchReserve > 1)
+            throw new IllegalArgumentException();
+        this.burst = burst;
+        this.batchReserve = batchReserve;
+    }
+
+    @Override
+    public void acquire(RequestPriority priority, Resource resource) throws IOException {
+        long delay = reserve(priority, resource, System.currentTimeMillis());
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+            }
+        }
+    }
+
+    @Override
+    public void update(GHRateLimit observed, Resource resource) {
+        budget(resource).update(observed);
+    }
+
+    /**
+     * Takes one request out of the budget.
+     *
+     * @return how long in milliseconds the request needs to wait before it can be sent.
+     */
+    /*package*/ long reserve(RequestPriority priority, Resource resource, long now) {
+        return budget(resource).reserve(priority, now);
+    }
+
+    private Budget budget(Resource resource) {
+        return resource == Resource.SEARCH ? search : core;
+    }
+
+    private final class Budget {
+        private boolean known;
+        private int limit;
+        private int remaining;
+        private long reset;
+        /**
+         * Earliest time at which the next paced request is due if no burst is allowed.
+         */
+        private long due;
+
+        synchronized void update(GHRateLimit observed) {
+            long observedReset = observed.getResetDate().getTime();
+            if (!known || observedReset > reset) {
+                // a new window
+                known = true;
+                reset = observedReset;
+                remaining = observed.remaining;
+                due = 0;
+            } else {
+                // requests still in flight may not have been counted by GitHub yet
+                remaining = Math.min(remaining, observed.remaining);
+            }
+            limit = observed.limit;
+        }
+
+        synchronized long reserve(RequestPriority priority, long now) {
+            if (!known || now >= reset)
+                return 0;   // nothing to go by until a response tells us about the new window
+
+            int usable = remaining;
+            if (priority == RequestPriority.BATCH)
+                usable -= (int) (limit * batchReserve);
+            if (usable <= 0)
+                return reset - now;
+
+            remaining--;
+            if (priority == RequestPriority.INTERACTIVE)
+                return 0;
+
+            long interval = (reset - now) / usable;
+            due = Math.max(due, now) + interval;
+            return Math.max(0, due - interval - burst * interval - now);
+        }
+    }
+
+    /**
+     * Default number of requests that can go out back to back.
+     */
+    public static final int DEFAULT_BURST = 50;
+
+    /**
+     * Default share of the limit kept away from batch requests.
+     */
+    public static final float DEFAULT_BATCH_RESERVE = 0.2f;
+}
@@ -0,0 +1,194 @@
+package org.kohsuke.github.extras;
+
+import org.kohsuke.github.RequestEvent;
+import org.kohsuke.github.RequestListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link RequestListener} that keeps counts and latency histograms per API method,
+ * to find out which calls are expensive without a profiler.
+ *
+ * <p>
+ * Requests are grouped by HTTP method and {@linkplain RequestEvent#getUrlTemplate() URL template}.
+ * Recording doesn't take any lock, so the same instance can be shared by all threads and {@code GitHub} instances.
+ */
+public class RequestHistogram implements RequestListener {
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<String, Stats>();
+
+    public void onStart(RequestEvent event) {
+    }
+
+    public void onEnd(RequestEvent event) {
+        String key = event.getMethod() + " " + event.getUrlTemplate();
+        Stats s = stats.get(key);
+        if (s == null) {
+            Stats created = new Stats(key);
+            s = stats.putIfAbsent(key, created);
+            if (s == null)
+                s = created;
+        }
+        s.record(event);
+    }
+
+    /**
+     * Statistics so far, keyed by HTTP method and URL template, such as {@code GET /repos/{owner}/{repo}/pulls}.
+     */
+    public Map<String, Stats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void clear() {
+        stats.clear();
+    }
+
+    /**
+     * Renders the statistics as a table, the API methods that took the most time in total first.
+     */
+    public String report() {
+        List<Stats> all = new ArrayList<Stats>(stats.values());
+        Collections.sort(all, new Comparator<Stats>() {
+            public int compare(Stats a, Stats b) {
+                long x = a.getTotalTime(), y = b.getTotalTime();
+                return x > y ? -1 : x < y ? 1 : 0;
+            }
+        });
+
+        StringBuilder b = new StringBuilder(String.format("%8s %7s %7s %10s %8s %8s %8s %12s  %s%n",
+                "count", "errors", "retries", "total ms", "mean ms", "p50 ms", "p99 ms", "bytes", "request"));
+        for (Stats s : all) {
+            b.append(String.format("%8d %7d %7d %10d %8.1f %8.1f %8.1f %12d  %s%n",
+                    s.getCount(), s.getErrorCount(), s.getRetryCount(), millis(s.getTotalTime()),
+                    s.getMeanTime() / 1e6, s.getPercentile(0.5) / 1e6, s.getPercentile(0.99) / 1e6,
+                    s.getBytesRead(), s.getName()));
+        }
+        return b.toString();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+    /**
+     * Statistics of one API method. All durations are in nanoseconds.
+     */
+    public static final class Stats {
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesDecoded = new AtomicLong();
+        private final AtomicLong totalTime = new AtomicLong();
+        private final AtomicLong parseTime = new AtomicLong();
+        /**
+         * Bucket {@code i} counts the durations that need {@code i} bits, that is, from 2^(i-1) to 2^i - 1.
+         */
+        private final AtomicLongArray durations = new AtomicLongArray(65);
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        private void record(RequestEvent event) {
+            long duration = Math.max(0, event.getDuration());
+            count.incrementAndGet();
+            if (event.getFailure() != null || event.getStatusCode() >= 400)
+                errors.incrementAndGet();
+            retries.addAndGet(event.getRetryCount());
+            bytesRead.addAndGet(event.getBytesRead());
+            bytesDecoded.addAndGet(event.getBytesDecoded());
+            totalTime.addAndGet(duration);
+            parseTime.addAndGet(event.getParseTime());
+            durations.incrementAndGet(64 - Long.numberOfLeadingZeros(duration));
+        }
+
+        /**
+         * HTTP method and URL template.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * Requests that failed or got an error status code.
+         */
+        public long getErrorCount() {
+            return errors.get();
+        }
+
+        public long getRetryCount() {
+            return retries.get();
+        }
+
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        public long getBytesDecoded() {
+            return bytesDecoded.get();
+        }
+
+        public long getTotalTime() {
+            return totalTime.get();
+        }
+
+        public long getParseTime() {
+            return parseTime.get();
+        }
+
+        public double getMeanTime() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) totalTime.get() / n;
+        }
+
+        /**
+         * Approximates the duration that the given share of the requests didn't exceed, within a factor of 2.
+         *
+         * @param p
+         *      Between 0 and 1, such as 0.99 for the 99th percentile.
+         */
+        public long getPercentile(double p) {
+            long total = 0;
+            for (int i = 0; i < durations.length(); i++)
+                total += durations.get(i);
+            if (total == 0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(p * total));
+            long seen = 0;
+            for (int i = 0; i < durations.length(); i++) {
+                seen += durations.get(i);
+                if (seen >= rank)
+                    return i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return name + " count=" + count + " errors=" + errors + " total=" + millis(totalTime.get()) + "ms";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncGitHubTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void boundsConcurrentRequests() throws Exception {
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        server.on("/users/someone", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int n = current.incrementAndGet();
+                synchronized (peak) {
+                    peak.set(Math.max(peak.get(), n));
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                current.decrementAndGet();
+                LocalApiServer.send(exchange, 200, "{\"login\":\"someone\"}");
+            }
+        });
+
+        GitHub gitHub = server.connect();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            AsyncGitHub async = gitHub.async(executor, 3);
+            List<Future<GHUser>> users = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                gitHub.refreshCache();
+                users.add(async.getUser("someone"));
+            }
+            for (Future<GHUser> u : users) {
+                assertThat(u.get().getLogin(), is("someone"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(peak.get() <= 3, is(true));
+    }
+
+    @Test
+    public void queuedRequestsDoNotHoldThreads() throws Exception {
+        server.on("/users/someone", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                LocalApiServer.send(exchange, 200, "{\"login\":\"someone\"}");
+            }
+        });
+
+        final AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                threads.incrementAndGet();
+                return new Thread(r);
+            }
+        });
+        GitHub gitHub = server.connect();
+        try {
+            AsyncGitHub async = gitHub.async(executor, 2);
+            List<Future<GHUser>> users = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                gitHub.refreshCache();
+                users.add(async.getUser("someone"));
+            }
+            for (Future<GHUser> u : users) {
+                assertThat(u.get().getLogin(), is("someone"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(threads.get() <= 2, is(true));
+    }
+
+    @Test
+    public void fanOutFromACallDoesNotWaitForPermits() throws Exception {
+        server.on("/users/someone", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                LocalApiServer.send(exchange, 200, "{\"login\":\"someone\"}");
+            }
+        });
+
+        final GitHub gitHub = server.connect();
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            final AsyncGitHub async = gitHub.async(executor, 1);
+            Future<String> outer = async.submit(new Callable<String>() {
+                public String call() throws IOException {
+                    // the only permit is held by this call, so a submitted call would never run
+                    return AsyncGitHub.await(async.fork(new Callable<String>() {
+                        public String call() throws IOException {
+                            return gitHub.getUser("someone").getLogin();
+                        }
+                    }));
+                }
+            });
+            assertThat(outer.get(5, TimeUnit.SECONDS), is("someone"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void defaultInstanceIsShared() throws Exception {
+        GitHub gitHub = server.connect();
+        assertThat(gitHub.async() == gitHub.async(), is(true));
+        assertThat(gitHub.async().getMaxConcurrency(), is(AsyncGitHub.DEFAULT_CONCURRENCY));
+    }
+}
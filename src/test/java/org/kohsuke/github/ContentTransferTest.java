@@ -0,0 +1,119 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ContentTransferTest {
+
+    private static final String RAW = "application/vnd.github.VERSION.raw";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[3 * 1024 * 1024 + 17];
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(42).nextBytes(data);
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        server.on("/repos/octocat/hello/git/blobs/cafe", raw(data, null));
+        server.on("/repos/octocat/hello/contents/big.bin", raw(data,
+                "{\"type\":\"file\",\"name\":\"big.bin\",\"path\":\"big.bin\","
+                        + "\"url\":\"" + server.getUrl() + "/repos/octocat/hello/contents/big.bin\","
+                        + "\"download_url\":\"" + server.getUrl() + "/download/big.bin\"}"));
+        server.on("/download/big.bin", raw(data, null));
+        repo = server.connect().getRepository("octocat/hello");
+    }
+
+    @Test
+    public void blobIntoFile() throws Exception {
+        File f = tmp.newFile();
+        assertThat(repo.readBlob("cafe", f), is((long) data.length));
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(f), data), is(true));
+    }
+
+    @Test
+    public void blobIntoChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(repo.readBlob("cafe", Channels.newChannel(out)), is((long) data.length));
+        assertThat(Arrays.equals(out.toByteArray(), data), is(true));
+    }
+
+    @Test
+    public void contentIntoFile() throws Exception {
+        GHContent content = repo.getFileContent("big.bin");
+        File f = tmp.newFile();
+        assertThat(content.transferTo(f), is((long) data.length));
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(f), data), is(true));
+    }
+
+    @Test
+    public void contentIntoChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(repo.getFileContent("big.bin").transferTo(Channels.newChannel(out)), is((long) data.length));
+        assertThat(Arrays.equals(out.toByteArray(), data), is(true));
+        assertThat(server.hitCount("/download/big.bin"), is(0));
+    }
+
+    @Test
+    public void encodedContentIsDownloaded() throws Exception {
+        // the metadata comes without the content
+        assertThat(repo.getFileContent("big.bin").getEncodedContent(), is(Base64.encodeBase64String(data)));
+        assertThat(server.hitCount("/download/big.bin"), is(1));
+    }
+
+    @Test
+    public void failedTransferLeavesNoFile() throws Exception {
+        File f = tmp.newFile();
+        try {
+            repo.readBlob("dead", f);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(f.exists(), is(false));
+    }
+
+    /**
+     * Answers with the bytes when asked for the raw media type, and with the JSON otherwise.
+     */
+    private static HttpHandler raw(final byte[] bytes, final String json) {
+        return new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (json != null && !RAW.equals(exchange.getRequestHeaders().getFirst("Accept"))) {
+                    LocalApiServer.send(exchange, 200, json);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, 0);   // chunked
+                OutputStream out = exchange.getResponseBody();
+                for (int i = 0; i < bytes.length; i += 100000) {
+                    out.write(bytes, i, Math.min(100000, bytes.length - i));
+                }
+                out.close();
+            }
+        };
+    }
+}
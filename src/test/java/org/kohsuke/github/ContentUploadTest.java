@@ -0,0 +1,151 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ContentUploadTest {
+
+    private static final String UPDATED = "{\"content\":{\"name\":\"big.bin\",\"path\":\"big.bin\",\"sha\":\"beef\"},"
+            + "\"commit\":{\"sha\":\"f00d\"}}";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[2 * 1024 * 1024 + 5];
+    private final Upload upload = new Upload();
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(7).nextBytes(data);
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        server.on("/repos/octocat/hello/contents/big.bin", upload);
+        server.on("/repos/octocat/hello/git/blobs", upload);
+        repo = server.connect().getRepository("octocat/hello");
+    }
+
+    @Test
+    public void createContentFromStream() throws Exception {
+        GHContentUpdateResponse response = repo.createContent(new ByteArrayInputStream(data), "add", "big.bin", "main");
+
+        assertThat(response.getCommit().getSHA1(), is("f00d"));
+        assertThat(upload.chunked, is(true));
+        assertThat(upload.json.get("message").asText(), is("add"));
+        assertThat(upload.json.get("branch").asText(), is("main"));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+    }
+
+    @Test
+    public void createContentFromFile() throws Exception {
+        File f = tmp.newFile();
+        FileUtils.writeByteArrayToFile(f, data);
+        repo.createContent(f, "add", "big.bin", null);
+
+        assertThat(upload.chunked, is(true));
+        assertThat(upload.json.has("branch"), is(false));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+    }
+
+    @Test
+    public void smallContentIsStillSentWithItsLength() throws Exception {
+        repo.createContent("hello".getBytes("UTF-8"), "add", "big.bin", null);
+
+        assertThat(upload.chunked, is(false));
+        assertThat(upload.json.get("content").asText(), is(Base64.encodeBase64String("hello".getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void updateFromStream() throws Exception {
+        GHContent content = GitHub.MAPPER.readValue("{\"name\":\"big.bin\",\"path\":\"big.bin\",\"sha\":\"cafe\","
+                + "\"url\":\"" + server.getUrl() + "/repos/octocat/hello/contents/big.bin\"}", GHContent.class).wrap(repo);
+        content.update(new ByteArrayInputStream(data), "change", null);
+
+        assertThat(upload.json.get("sha").asText(), is("cafe"));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+    }
+
+    @Test
+    public void updateFromBytes() throws Exception {
+        GHContent content = GitHub.MAPPER.readValue("{\"name\":\"big.bin\",\"path\":\"big.bin\",\"sha\":\"cafe\","
+                + "\"url\":\"" + server.getUrl() + "/repos/octocat/hello/contents/big.bin\"}", GHContent.class).wrap(repo);
+        content.update(data, "change", null);
+
+        assertThat(upload.chunked, is(false));
+        assertThat(upload.length, is(upload.received));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+        assertThat(content.getEncodedContent(), is(Base64.encodeBase64String(data)));
+    }
+
+    @Test
+    public void blobFromStream() throws Exception {
+        repo.createBlob().binaryContent(new ByteArrayInputStream(data)).create();
+
+        assertThat(upload.chunked, is(true));
+        assertThat(upload.json.get("encoding").asText(), is("base64"));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+    }
+
+    @Test
+    public void blobFromBytes() throws Exception {
+        repo.createBlob().binaryContent(data).create();
+
+        assertThat(upload.chunked, is(false));
+        assertThat(Arrays.equals(upload.content(), data), is(true));
+    }
+
+    @Test
+    public void textBlobIsUnchanged() throws Exception {
+        repo.createBlob().textContent("hello").create();
+
+        assertThat(upload.json.get("content").asText(), is("hello"));
+        assertThat(upload.json.get("encoding").asText(), is("utf-8"));
+        assertThat(upload.json.get("sha"), nullValue());
+    }
+
+    /**
+     * Records the JSON that was sent and how.
+     */
+    private static class Upload implements HttpHandler {
+        volatile boolean chunked;
+        volatile String length;
+        volatile String received;
+        volatile JsonNode json;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            chunked = "chunked".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            length = exchange.getRequestHeaders().getFirst("Content-Length");
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            received = String.valueOf(body.length);
+            json = new ObjectMapper().readTree(body);
+            LocalApiServer.send(exchange, exchange.getRequestURI().getPath().endsWith("/blobs") ? 201 : 200,
+                    exchange.getRequestURI().getPath().endsWith("/blobs") ? "{\"sha\":\"beef\"}" : UPDATED);
+        }
+
+        byte[] content() {
+            return Base64.decodeBase64(json.get("content").asText());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.kohsuke.github;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class GHEventInfoTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        server.json("/repos/octocat/hello/events", "[" +
+                event(1, "PushEvent", "{\"ref\":\"refs/heads/master\",\"size\":1,\"commits\":[{\"sha\":\"abc\",\"message\":\"m\"}]}") + "," +
+                event(2, "WatchEvent", "{\"action\":\"started\"}") + "," +
+                event(3, "CreateEvent", "{\"ref\":\"v1\",\"ref_type\":\"tag\"}") + "," +
+                event(4, "PullRequestReviewCommentEvent", "{\"action\":\"created\"}") + "]");
+        repo = server.connect().getRepository("octocat/hello");
+    }
+
+    @Test
+    public void payloadIsBoundOnceToTheTypeOfTheEvent() throws Exception {
+        List<GHEventInfo> events = repo.listEvents().asList();
+
+        GHEventInfo push = events.get(0);
+        assertThat(push.getType(), is(GHEvent.PUSH));
+        GHEventPayload payload = push.getPayload();
+        assertThat(payload, instanceOf(GHEventPayload.Push.class));
+        assertThat(((GHEventPayload.Push) payload).getRef(), is("refs/heads/master"));
+        assertThat(((GHEventPayload.Push) payload).getCommits().get(0).getSha(), is("abc"));
+        assertThat(push.getPayload(), sameInstance(payload));
+        assertThat(push.getPayload(GHEventPayload.Push.class), sameInstance(payload));
+
+        assertThat(events.get(1).getType(), is(GHEvent.WATCH));
+        assertThat(events.get(1).getPayload(), nullValue());
+        assertThat(events.get(2).getPayload(GHEventPayload.Create.class).getRefType(), is("tag"));
+        assertThat(events.get(3).getType(), is(GHEvent.PULL_REQUEST_REVIEW_COMMENT));
+    }
+
+    @Test
+    public void payloadCanStillBeBoundToAnotherType() throws Exception {
+        GHEventInfo create = repo.listEvents().asList().get(2);
+        GHEventPayload.Create first = create.getPayload(GHEventPayload.Create.class);
+
+        assertThat(create.getPayload(GHEventPayload.Delete.class).getRef(), is("v1"));
+        assertThat(create.getPayload(GHEventPayload.Create.class).getRef(), is(first.getRef()));
+    }
+
+    @Test
+    public void eventsAreFilteredByType() throws Exception {
+        List<Long> ids = new ArrayList<Long>();
+        for (GHEventInfo e : GHEventInfo.ofType(repo.listEvents(), GHEvent.PUSH, GHEvent.CREATE)) {
+            ids.add(e.getId());
+        }
+        assertThat(ids, is(asList(1L, 3L)));
+        assertThat(GHEventInfo.ofType(repo.listEvents(), GHEvent.FORK).asList().isEmpty(), is(true));
+    }
+
+    private static String event(long id, String type, String payload) {
+        return "{\"id\":" + id + ",\"type\":\"" + type + "\",\"actor\":{\"login\":\"octocat\"},"
+                + "\"repo\":{\"name\":\"octocat/hello\"},\"payload\":" + payload + ",\"created_at\":\"2016-01-01T00:00:00Z\"}";
+    }
+}
@@ -0,0 +1,134 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GHEventStreamTest {
+
+    private static final String EVENTS = "/repos/octocat/hello/events";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    /**
+     * Ids of the events in the feed, newest first.
+     */
+    private volatile List<Long> feed = new ArrayList<Long>();
+    private volatile String pollInterval = "0";
+    private final AtomicInteger pagesServed = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        server.on(EVENTS, new Feed());
+        repo = server.connect().getRepository("octocat/hello");
+    }
+
+    @Test
+    public void idleFeedCostsOneNotModifiedResponse() throws Exception {
+        feed = asList(5L, 4L, 3L, 2L, 1L);
+        GHEventStream stream = repo.streamEvents().nonBlocking(true);
+
+        assertThat(ids(stream), is(asList(1L, 2L, 3L, 4L, 5L)));
+        assertThat(pagesServed.get(), is(3));
+
+        assertThat(ids(stream).isEmpty(), is(true));
+        assertThat(server.hitCount(EVENTS), is(4));
+        assertThat(notModified.get(), is(1));
+    }
+
+    @Test
+    public void onlyNewEventsAreReadAndReported() throws Exception {
+        feed = asList(5L, 4L, 3L, 2L, 1L);
+        GHEventStream stream = repo.streamEvents().nonBlocking(true);
+        ids(stream);
+        pagesServed.set(0);
+
+        feed = asList(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(ids(stream), is(asList(6L, 7L)));
+        // the second page holds events reported already
+        assertThat(pagesServed.get(), is(2));
+    }
+
+    @Test
+    public void lateEventsAreReportedOnce() throws Exception {
+        feed = asList(10L, 8L, 6L);
+        GHEventStream stream = repo.streamEvents().nonBlocking(true);
+        ids(stream);
+
+        feed = asList(7L, 10L, 8L, 6L);
+        assertThat(ids(stream), is(asList(7L)));
+        feed = asList(11L, 7L, 10L, 8L, 6L);
+        assertThat(ids(stream), is(asList(11L)));
+    }
+
+    @Test
+    public void streamResumesAfterTheGivenEvent() throws Exception {
+        feed = asList(5L, 4L, 3L, 2L, 1L);
+        assertThat(ids(repo.streamEvents().after(3).nonBlocking(true)), is(asList(4L, 5L)));
+        assertThat(pagesServed.get(), is(2));
+    }
+
+    @Test
+    public void pollIntervalIsRespected() throws Exception {
+        feed = asList(2L, 1L);
+        pollInterval = "60";
+        GHEventStream stream = repo.streamEvents().nonBlocking(true);
+        ids(stream);
+
+        feed = asList(3L, 2L, 1L);
+        assertThat(ids(stream).isEmpty(), is(true));
+        assertThat(server.hitCount(EVENTS), is(1));
+    }
+
+    private static List<Long> ids(GHEventStream stream) {
+        List<Long> ids = new ArrayList<Long>();
+        for (GHEventInfo e : stream) {
+            ids.add(e.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Serves {@link #feed} two events per page, with an ETag that changes with the content.
+     */
+    private final class Feed implements HttpHandler {
+        public void handle(HttpExchange exchange) throws IOException {
+            List<Long> events = feed;
+            String query = exchange.getRequestURI().getQuery();
+            int page = query.matches(".*\\bpage=\\d+.*") ? Integer.parseInt(query.replaceAll(".*\\bpage=(\\d+).*", "$1")) : 1;
+            String etag = "\"" + events.hashCode() + "-" + page + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("X-Poll-Interval", pollInterval);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            pagesServed.incrementAndGet();
+            int from = (page - 1) * 2, to = Math.min(from + 2, events.size());
+            if (to < events.size())
+                exchange.getResponseHeaders().set("Link", "<" + server.getUrl() + EVENTS + "?page=" + (page + 1) + ">; rel=\"next\"");
+            StringBuilder json = new StringBuilder("[");
+            for (int i = from; i < to; i++) {
+                json.append(i > from ? "," : "").append("{\"id\":").append(events.get(i)).append(",\"type\":\"WatchEvent\",")
+                        .append("\"actor\":{\"login\":\"octocat\"},\"repo\":{\"name\":\"octocat/hello\"},\"payload\":{\"action\":\"started\"}}");
+            }
+            LocalApiServer.send(exchange, 200, json.append("]").toString());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GHTreeTest {
+
+    private static final String TREES = "/repos/octocat/hello/git/trees/";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    private final Map<String, String> trees = new ConcurrentHashMap<>();
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        repo = server.connect().getRepository("octocat/hello");
+    }
+
+    @Test
+    public void entriesAreLookedUpByPath() throws Exception {
+        tree("top", true, false, blob("README"), tree("src"), tree("src/main"), blob("src/main/Foo.java"),
+                blob("src/main/Bar.java"), blob("src-gen"));
+        GHTree tree = repo.getTreeRecursive("top", 1);
+
+        assertThat(tree.getEntry("src/main/Foo.java").getSha(), is("src/main/Foo.java"));
+        assertThat(tree.getEntry("src/main/Baz.java"), nullValue());
+        assertThat(paths(tree.getEntries("")), is(asList("README", "src", "src-gen")));
+        assertThat(paths(tree.getEntries("src/main")), is(asList("src/main/Foo.java", "src/main/Bar.java")));
+        assertThat(tree.getEntries("nowhere").isEmpty(), is(true));
+        assertThat(paths(tree.getEntriesWithPrefix("src/")), is(asList("src/main", "src/main/Bar.java", "src/main/Foo.java")));
+        assertThat(paths(tree.getEntriesWithPrefix("src")), is(asList("src", "src-gen", "src/main", "src/main/Bar.java", "src/main/Foo.java")));
+        assertThat(tree.getEntriesWithPrefix("zzz").isEmpty(), is(true));
+    }
+
+    @Test
+    public void truncatedTreeIsCompletedFromItsSubtrees() throws Exception {
+        tree("top", true, true, blob("README"), tree("src"));
+        tree("top", false, false, blob("README"), tree("src"), tree("docs"), blob("src-gen"));
+        tree("docs", true, false, blob("index.md"), tree("img"), blob("img/logo.png"));
+        // still too large, so it is split further
+        tree("src", true, true, blob("a.txt"));
+        tree("src", false, false, tree("main"), blob("a.txt"));
+        tree("main", true, false, blob("Foo.java"));
+
+        GHTree tree = repo.getTreeRecursive("top", 1);
+
+        assertThat(tree.isTruncated(), is(false));
+        assertThat(tree.getSha(), is("top"));
+        assertThat(paths(tree.getTree()), is(asList("README", "docs", "docs/img", "docs/img/logo.png", "docs/index.md",
+                "src-gen", "src", "src/a.txt", "src/main", "src/main/Foo.java")));
+        assertThat(tree.getEntry("src/main/Foo.java").getType(), is("blob"));
+        assertThat(paths(tree.getEntries("docs")), is(asList("docs/img", "docs/index.md")));
+    }
+
+    @Test
+    public void completeTreeIsFetchedOnce() throws Exception {
+        tree("top", true, false, blob("README"));
+        repo.getTreeRecursive("top", 1);
+        assertThat(server.hitCount(TREES + "top"), is(1));
+    }
+
+    private static List<String> paths(List<GHTreeEntry> entries) {
+        List<String> paths = new ArrayList<String>();
+        for (GHTreeEntry e : entries) {
+            paths.add(e.getPath());
+        }
+        return paths;
+    }
+
+    private static String blob(String path) {
+        return "{\"path\":\"" + path + "\",\"type\":\"blob\",\"mode\":\"100644\",\"sha\":\"" + path + "\",\"size\":1}";
+    }
+
+    private static String tree(String path) {
+        return "{\"path\":\"" + path + "\",\"type\":\"tree\",\"mode\":\"040000\",\"sha\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\"}";
+    }
+
+    /**
+     * Serves the tree of the given sha, either as the recursive or as the single level listing.
+     */
+    private void tree(final String sha, boolean recursive, boolean truncated, String... entries) {
+        final String json = "{\"sha\":\"" + sha + "\",\"truncated\":" + truncated + ",\"tree\":[" + join(entries) + "]}";
+        trees.put(sha + recursive, json);
+        server.on(TREES + sha, new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                LocalApiServer.send(exchange, 200, trees.get(sha + (query != null && query.contains("recursive=1"))));
+            }
+        });
+    }
+
+    private static String join(String... entries) {
+        StringBuilder b = new StringBuilder();
+        for (String e : entries) {
+            if (b.length() > 0)
+                b.append(',');
+            b.append(e);
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package org.kohsuke.github;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class IdentityCacheTest {
+
+    private static final long NOW = 1000000000000L;
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        IdentityCache<String> cache = new IdentityCache<String>(2, 0, TimeUnit.MILLISECONDS, IdentityCache.Strength.STRONG);
+        cache.put("a", "A", NOW);
+        cache.put("b", "B", NOW);
+        assertThat(cache.get("a", NOW), is("A"));
+        cache.put("c", "C", NOW);
+
+        assertThat(cache.get("b", NOW), nullValue());
+        assertThat(cache.get("a", NOW), is("A"));
+        assertThat(cache.get("c", NOW), is("C"));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getHitCount(), is(3L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void staleEntriesAreNotServed() {
+        IdentityCache<String> cache = new IdentityCache<String>(10, 1, TimeUnit.SECONDS, IdentityCache.Strength.STRONG);
+        cache.put("a", "A", NOW);
+        assertThat(cache.get("a", NOW + 999), is("A"));
+        assertThat(cache.get("a", NOW + 1000), nullValue());
+        assertThat(cache.getExpirationCount(), is(1L));
+
+        cache.put("a", "A2", NOW + 1000);
+        assertThat(cache.get("a", NOW + 1999), is("A2"));
+    }
+
+    @Test
+    public void reclaimedValuesAreDropped() throws Exception {
+        IdentityCache<Object> cache = new IdentityCache<Object>(10, 0, TimeUnit.MILLISECONDS, IdentityCache.Strength.WEAK);
+        cache.put("a", new Object(), NOW);
+        for (int i = 0; i < 50 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            cache.get("b", NOW);
+        }
+        assertThat(cache.size(), is(0));
+        assertThat(cache.get("a", NOW), nullValue());
+        assertThat(cache.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void unboundedCacheIsSharedByConcurrentLookups() throws Exception {
+        final IdentityCache<String> cache = new IdentityCache<String>();
+        cache.put("a", "A");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> found = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                found.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() {
+                        int n = 0;
+                        for (int i = 0; i < 1000; i++) {
+                            if ("A".equals(cache.get("a")))
+                                n++;
+                            cache.get("missing");
+                        }
+                        return n;
+                    }
+                }));
+            }
+            for (Future<Integer> f : found) {
+                assertThat(f.get(), is(1000));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(cache.getHitCount(), is(8000L));
+        assertThat(cache.getMissCount(), is(8000L));
+        assertThat(cache.remove("a"), is("A"));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void usersAreFetchedAgainOnceEvicted() throws Exception {
+        server.json("/users/alice", "{\"login\":\"alice\"}");
+        server.json("/users/bob", "{\"login\":\"bob\"}");
+        IdentityCache<GHUser> users = new IdentityCache<GHUser>(1, 0, TimeUnit.MILLISECONDS, IdentityCache.Strength.STRONG);
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withUserCache(users)
+                .build();
+
+        GHUser alice = gitHub.getUser("alice");
+        assertThat(gitHub.getUser("alice"), sameInstance(alice));
+        gitHub.getUser("bob");
+        gitHub.getUser("alice");
+
+        assertThat(server.hitCount("/users/alice"), is(2));
+        assertThat(users.getHitCount(), is(1L));
+        assertThat(users.getEvictionCount(), is(2L));
+
+        gitHub.refreshCache();
+        assertThat(users.size(), is(0));
+    }
+}
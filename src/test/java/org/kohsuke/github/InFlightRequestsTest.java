@@ -0,0 +1,233 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kohsuke.github.extras.InMemoryResponseCache;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class InFlightRequestsTest {
+
+    private static final int CALLERS = 10;
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void identicalRequestsShareOneResponse() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        server.on("/repos/org/big", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                await(release);
+                LocalApiServer.send(exchange, 200, "{\"name\":\"big\",\"full_name\":\"org/big\"}");
+            }
+        });
+        Events events = new Events();
+        final GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestCoalescing(true)
+                .withRequestListener(events)
+                .build();
+
+        List<Future<GHRepository>> results = startAll(new Callable<GHRepository>() {
+            public GHRepository call() throws Exception {
+                return gitHub.getRepository("org/big");
+            }
+        }, events);
+        release.countDown();
+
+        IdentityHashMap<GHRepository, Boolean> distinct = new IdentityHashMap<GHRepository, Boolean>();
+        for (Future<GHRepository> f : results) {
+            GHRepository r = f.get(10, TimeUnit.SECONDS);
+            assertThat(r.getFullName(), is("org/big"));
+            distinct.put(r, true);
+        }
+        assertThat(server.hitCount("/repos/org/big"), is(1));
+        assertThat(distinct.size(), is(CALLERS));
+        assertThat(events.coalesced.get(), is(CALLERS - 1));
+        assertThat(gitHub.inFlightRequests.size(), is(0));
+    }
+
+    @Test
+    public void callersRetryOnTheirOwnWhenTheSharedRequestFails() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    await(release);
+                    LocalApiServer.send(exchange, 500, "{\"message\":\"Server Error\"}");
+                } else {
+                    LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\"}");
+                }
+            }
+        });
+        Events events = new Events();
+        final GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestCoalescing(true)
+                .withRequestListener(events)
+                .build();
+
+        List<Future<GHUser>> results = startAll(new Callable<GHUser>() {
+            public GHUser call() throws Exception {
+                return gitHub.retrieve().to("/users/kohsuke", GHUser.class);
+            }
+        }, events);
+        release.countDown();
+
+        int failed = 0;
+        for (Future<GHUser> f : results) {
+            try {
+                assertThat(f.get(10, TimeUnit.SECONDS).getLogin(), is("kohsuke"));
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        assertThat(failed, is(1));
+        assertThat(attempts.get(), is(CALLERS));
+    }
+
+    @Test
+    public void notModifiedResponseIsSharedFromTheCache() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    await(release);
+                    LocalApiServer.send(exchange, 304, "");
+                } else {
+                    LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\"}");
+                }
+            }
+        });
+        InMemoryResponseCache cache = new InMemoryResponseCache(1024 * 1024);
+        new GitHubBuilder().withEndpoint(server.getUrl()).withResponseCache(cache).build()
+                .retrieve().to("/users/kohsuke", GHUser.class);
+        Events events = new Events();
+        final GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withResponseCache(cache)
+                .withRequestCoalescing(true)
+                .withRequestListener(events)
+                .build();
+
+        List<Future<GHUser>> results = startAll(new Callable<GHUser>() {
+            public GHUser call() throws Exception {
+                return gitHub.retrieve().to("/users/kohsuke", GHUser.class);
+            }
+        }, events);
+        release.countDown();
+
+        for (Future<GHUser> f : results) {
+            assertThat(f.get(10, TimeUnit.SECONDS).getLogin(), is("kohsuke"));
+        }
+        assertThat(server.hitCount("/users/kohsuke"), is(2));
+        assertThat(events.coalesced.get(), is(CALLERS - 1));
+    }
+
+    @Test
+    public void refusalIsSharedWithTheCallersWaitingForIt() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        server.on("/users/ghost", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                await(release);
+                LocalApiServer.send(exchange, 404, "{\"message\":\"Not Found\"}");
+            }
+        });
+        Events events = new Events();
+        final GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestCoalescing(true)
+                .withRequestListener(events)
+                .build();
+
+        List<Future<GHUser>> results = startAll(new Callable<GHUser>() {
+            public GHUser call() throws Exception {
+                return gitHub.retrieve().to("/users/ghost", GHUser.class);
+            }
+        }, events);
+        release.countDown();
+
+        for (Future<GHUser> f : results) {
+            try {
+                f.get(10, TimeUnit.SECONDS);
+                fail("should have failed");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause() instanceof FileNotFoundException, is(true));
+            }
+        }
+        assertThat(server.hitCount("/users/ghost"), is(1));
+        assertThat(events.coalesced.get(), is(CALLERS - 1));
+        assertThat(gitHub.inFlightRequests.size(), is(0));
+    }
+
+    @Test
+    public void requestsAreNotSharedByDefault() throws Exception {
+        server.json("/users/kohsuke", "{\"login\":\"kohsuke\"}");
+        GitHub gitHub = server.connect();
+        assertThat(gitHub.inFlightRequests == null, is(true));
+        gitHub.retrieve().to("/users/kohsuke", GHUser.class);
+        assertThat(server.hitCount("/users/kohsuke"), is(1));
+    }
+
+    private static <T> List<Future<T>> startAll(Callable<T> task, Events events) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(task));
+        }
+        executor.shutdown();
+        // give the last callers a moment to join the request after they have been reported
+        while (events.started.get() < CALLERS) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static class Events implements RequestListener {
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger coalesced = new AtomicInteger();
+
+        public void onStart(RequestEvent event) {
+            started.incrementAndGet();
+        }
+
+        public void onEnd(RequestEvent event) {
+            if (event.isCoalesced())
+                coalesced.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tiny HTTP server standing in for the GitHub API, so that the request pipeline can be tested off-line.
+ *
+ * <p>
+ * Responses are registered per path (without the query string) and every hit is counted.
+ */
+public class LocalApiServer extends ExternalResource {
+    private HttpServer server;
+    private final Map<String, HttpHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @Override
+    protected void before() throws Throwable {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                hits(path).incrementAndGet();
+                HttpHandler h = handlers.get(path);
+                if (h == null) {
+                    send(exchange, 404, "{\"message\":\"Not Found\"}");
+                } else {
+                    h.handle(exchange);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void after() {
+        server.stop(0);
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public GitHub connect() throws IOException {
+        return new GitHubBuilder().withEndpoint(getUrl()).build();
+    }
+
+    public LocalApiServer on(String path, HttpHandler handler) {
+        handlers.put(path, handler);
+        return this;
+    }
+
+    public LocalApiServer json(String path, final String body) {
+        return on(path, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                send(exchange, 200, body);
+            }
+        });
+    }
+
+    public int hitCount(String path) {
+        return hits(path).get();
+    }
+
+    private AtomicInteger hits(String path) {
+        AtomicInteger n = hits.get(path);
+        if (n == null) {
+            hits.putIfAbsent(path, new AtomicInteger());
+            n = hits.get(path);
+        }
+        return n;
+    }
+
+    public static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            OutputStream out = exchange.getResponseBody();
+            out.write(bytes);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OrganizationPullRequestsTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    private GitHub gitHub;
+    private GHOrganization org;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/orgs/acme", "{\"login\":\"acme\"}");
+        server.json("/orgs/acme/repos", "[" + repo("alpha") + "," + repo("beta") + "," + repo("gamma") + "]");
+        server.on("/repos/acme/alpha/pulls", pulls("[{\"number\":1},{\"number\":2}]"));
+        server.on("/repos/acme/beta/pulls", pulls("[]"));
+        server.on("/repos/acme/gamma/pulls", pulls("[{\"number\":3}]"));
+        gitHub = server.connect();
+        org = gitHub.getOrganization("acme");
+    }
+
+    @Test
+    public void probesEveryRepositoryOnce() throws Exception {
+        assertThat(names(org.getRepositoriesWithOpenPullRequests()), is("alpha gamma"));
+        assertThat(server.hitCount("/repos/acme/alpha/pulls"), is(1));
+        assertThat(server.hitCount("/repos/acme/beta/pulls"), is(1));
+        assertThat(server.hitCount("/repos/acme/gamma/pulls"), is(1));
+    }
+
+    @Test
+    public void findsRepositoriesThroughSearch() throws Exception {
+        server.json("/search/issues", "{\"total_count\":2,\"incomplete_results\":false,\"items\":["
+                + "{\"number\":3,\"repository_url\":\"" + server.getUrl() + "/repos/acme/gamma\"},"
+                + "{\"number\":1,\"repository_url\":\"" + server.getUrl() + "/repos/acme/alpha\"},"
+                + "{\"number\":2,\"repository_url\":\"" + server.getUrl() + "/repos/acme/alpha\"}]}");
+        server.json("/repos/acme/alpha", repo("alpha"));
+        server.json("/repos/acme/gamma", repo("gamma"));
+
+        assertThat(names(org.getRepositoriesWithOpenPullRequests(true)), is("gamma alpha"));
+        assertThat(server.hitCount("/search/issues"), is(1));
+        assertThat(server.hitCount("/orgs/acme/repos"), is(0));
+    }
+
+    @Test
+    public void fallsBackToProbingWhenSearchIsTruncated() throws Exception {
+        server.json("/search/issues", "{\"total_count\":5000,\"incomplete_results\":false,\"items\":[]}");
+
+        assertThat(names(org.getRepositoriesWithOpenPullRequests(true)), is("alpha gamma"));
+        assertThat(server.hitCount("/orgs/acme/repos"), is(1));
+    }
+
+    @Test
+    public void fetchesPullRequestsOnce() throws Exception {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (GHPullRequest pr : org.getPullRequests()) {
+            numbers.add(pr.getNumber());
+        }
+        assertThat(numbers.toString(), is("[1, 2, 3]"));
+        assertThat(server.hitCount("/repos/acme/alpha/pulls"), is(1));
+        assertThat(server.hitCount("/repos/acme/gamma/pulls"), is(1));
+    }
+
+    private static String repo(String name) {
+        return "{\"name\":\"" + name + "\",\"full_name\":\"acme/" + name + "\",\"owner\":{\"login\":\"acme\"}}";
+    }
+
+    /**
+     * Answers with the given pull requests, or only the first of them when asked for a single one.
+     */
+    private static HttpHandler pulls(final String all) {
+        return new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                String body = all;
+                if (query != null && query.matches("(.*&)?per_page=1(&.*)?") && all.contains("},{"))
+                    body = all.substring(0, all.indexOf("},{") + 1) + "]";
+                LocalApiServer.send(exchange, 200, body);
+            }
+        };
+    }
+
+    private static String names(List<GHRepository> repositories) {
+        StringBuilder b = new StringBuilder();
+        for (GHRepository r : repositories) {
+            if (b.length() > 0)
+                b.append(' ');
+            b.append(r.getName());
+        }
+        return b.toString();
+    }
+}
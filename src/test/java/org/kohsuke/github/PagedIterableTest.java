@@ -0,0 +1,104 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PagedIterableTest {
+
+    private static final int PAGES = 7;
+    private static final int PER_PAGE = 3;
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Before
+    public void serveUsers() {
+        server.on("/users", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                Matcher m = Pattern.compile("(?:^|&)page=(\\d+)").matcher(query == null ? "" : query);
+                int page = m.find() ? Integer.parseInt(m.group(1)) : 1;
+                try {
+                    // later pages answer faster, so that out-of-order completion would show
+                    Thread.sleep((PAGES - page) * 5);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+
+                StringBuilder json = new StringBuilder("[");
+                for (int i = 0; i < PER_PAGE; i++) {
+                    if (i > 0) json.append(',');
+                    json.append("{\"login\":\"user").append((page - 1) * PER_PAGE + i).append("\"}");
+                }
+                json.append(']');
+
+                String base = server.getUrl() + "/users?per_page=" + PER_PAGE + "&page=";
+                StringBuilder link = new StringBuilder();
+                if (page < PAGES) {
+                    link.append('<').append(base).append(page + 1).append(">; rel=\"next\", ");
+                }
+                link.append('<').append(base).append(PAGES).append(">; rel=\"last\"");
+                exchange.getResponseHeaders().set("Link", link.toString());
+                LocalApiServer.send(exchange, 200, json.toString());
+            }
+        });
+    }
+
+    @Test
+    public void sequential() throws Exception {
+        assertInOrder(server.connect().listUsers().withPageSize(PER_PAGE));
+    }
+
+    @Test
+    public void prefetch() throws Exception {
+        assertInOrder(server.connect().listUsers().withPageSize(PER_PAGE).withPrefetch(2));
+    }
+
+    @Test
+    public void parallelPrefetch() throws Exception {
+        assertInOrder(server.connect().listUsers().withPageSize(PER_PAGE).withParallelPrefetch(3));
+    }
+
+    @Test
+    public void parallelPrefetchStopsEarly() throws Exception {
+        PagedIterator<GHUser> i = server.connect().listUsers().withPageSize(PER_PAGE).withParallelPrefetch(2).iterator();
+        assertThat(i.next().getLogin(), is("user0"));
+        // no more than the first page plus the pages in flight were requested
+        assertThat(server.hitCount("/users") <= 3, is(true));
+    }
+
+    @Test
+    public void arraysSpanningSeveralPagesAreConcatenated() throws Exception {
+        GHUser[] users = server.connect().retrieve().with("per_page", PER_PAGE).to("/users", GHUser[].class);
+        assertThat(users.length, is(PAGES * PER_PAGE));
+        for (int i = 0; i < users.length; i++) {
+            assertThat(users[i].getLogin(), is("user" + i));
+        }
+        assertThat(server.hitCount("/users"), is(PAGES));
+    }
+
+    private void assertInOrder(PagedIterable<GHUser> users) {
+        List<String> logins = new ArrayList<>();
+        for (GHUser u : users) {
+            logins.add(u.getLogin());
+        }
+        assertThat(logins.size(), is(PAGES * PER_PAGE));
+        for (int i = 0; i < logins.size(); i++) {
+            assertThat(logins.get(i), is("user" + i));
+        }
+        assertThat(server.hitCount("/users"), is(PAGES));
+    }
+}
@@ -0,0 +1,219 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RangeDownloadTest {
+
+    private static final int RANGE = 64 * 1024;
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[10 * RANGE + 123];
+    private final Storage storage = new Storage();
+    private GitHub gitHub;
+    private File target;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(19).nextBytes(data);
+        server.on("/storage/asset", storage);
+        gitHub = server.connect();
+        target = new File(tmp.getRoot(), "asset.bin");
+    }
+
+    @Test
+    public void rangesAreFetchedConcurrently() throws Exception {
+        assertThat(download(data.length).to(target), is((long) data.length));
+
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(target), data), is(true));
+        assertThat(storage.ranges.size(), is(11));
+        assertThat(new File(tmp.getRoot(), "asset.bin.part").exists(), is(false));
+        assertThat(new File(tmp.getRoot(), "asset.bin.part.ranges").exists(), is(false));
+    }
+
+    @Test
+    public void failedDownloadIsResumed() throws Exception {
+        storage.failAt = 5L * RANGE;
+        try {
+            download(data.length).to(target);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(target.exists(), is(false));
+
+        storage.ranges.clear();
+        download(data.length).to(target);
+
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(target), data), is(true));
+        assertThat(storage.ranges.contains("bytes=" + 5 * RANGE + "-" + (6 * RANGE - 1)), is(true));
+        assertThat(storage.ranges.size() < 11, is(true));
+    }
+
+    @Test
+    public void changedContentIsDownloadedAgain() throws Exception {
+        storage.failAt = 5L * RANGE;
+        try {
+            download(data.length).to(target);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+
+        storage.etag = "\"v2\"";
+        storage.ranges.clear();
+        download(data.length).to(target);
+
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(target), data), is(true));
+        assertThat(storage.ranges.size(), is(11));
+    }
+
+    @Test
+    public void serverWithoutRangesIsReadInOneGo() throws Exception {
+        storage.acceptRanges = false;
+        assertThat(download(-1).to(target), is((long) data.length));
+
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(target), data), is(true));
+        assertThat(server.hitCount("/storage/asset"), is(1));
+    }
+
+    @Test
+    public void unexpectedSizeIsRejected() throws Exception {
+        try {
+            download(data.length + 1).to(target);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(target.exists(), is(false));
+    }
+
+    @Test
+    public void assetIsDownloadedFromWhereItIsRedirected() throws Exception {
+        server.on("/repos/octocat/hello/releases/assets/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (!"application/octet-stream".equals(exchange.getRequestHeaders().getFirst("Accept"))) {
+                    LocalApiServer.send(exchange, 415, "{}");
+                    return;
+                }
+                exchange.getResponseHeaders().set("Location", "/storage/asset");
+                exchange.sendResponseHeaders(302, -1);
+            }
+        });
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        GHRepository repo = gitHub.getRepository("octocat/hello");
+        GHRelease release = GitHub.MAPPER.readValue("{\"id\":1}", GHRelease.class).wrap(repo);
+        GHAsset asset = GitHub.MAPPER.readValue("{\"id\":1,\"size\":" + data.length + "}", GHAsset.class).wrap(release);
+
+        assertThat(asset.downloadTo(target), is((long) data.length));
+        assertThat(Arrays.equals(FileUtils.readFileToByteArray(target), data), is(true));
+    }
+
+    @Test
+    public void emptyContentIsDownloaded() throws Exception {
+        server.on("/storage/empty", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */0");
+                exchange.sendResponseHeaders(416, -1);
+            }
+        });
+
+        assertThat(new RangeDownload(gitHub, new URL(server.getUrl() + "/storage/empty"), null, 0, RANGE, 4).to(target), is(0L));
+        assertThat(target.length(), is(0L));
+    }
+
+    @Test
+    public void requestsToTheApiHostAreReported() throws Exception {
+        final List<String> reported = new CopyOnWriteArrayList<String>();
+        gitHub = new GitHubBuilder().withEndpoint(server.getUrl())
+                .withRequestListener(new RequestListener() {
+                    public void onStart(RequestEvent event) {
+                    }
+
+                    public void onEnd(RequestEvent event) {
+                        reported.add(event.getUrl().getPath() + " " + event.getStatusCode());
+                    }
+                }).build();
+
+        download(data.length).to(target);
+
+        assertThat(reported.size(), is(11));
+        assertThat(reported.contains("/storage/asset 206"), is(true));
+    }
+
+    private RangeDownload download(long expectedSize) throws IOException {
+        return new RangeDownload(gitHub, new URL(server.getUrl() + "/storage/asset"), null, expectedSize, RANGE, 4);
+    }
+
+    /**
+     * Serves {@link #data} with range support, like the storage assets are redirected to.
+     */
+    private class Storage implements HttpHandler {
+        final List<String> ranges = new CopyOnWriteArrayList<String>();
+        volatile boolean acceptRanges = true;
+        volatile String etag = "\"v1\"";
+        /**
+         * Start of a range to fail once.
+         */
+        volatile long failAt = -1;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            exchange.getResponseHeaders().set("ETag", etag);
+            Matcher m = range == null ? null : RANGE_HEADER.matcher(range);
+            if (!acceptRanges || m == null || !m.matches() || (ifRange != null && !ifRange.equals(etag))) {
+                send(exchange, 200, 0, data.length);
+                return;
+            }
+            ranges.add(range);
+            int start = Integer.parseInt(m.group(1));
+            int end = Math.min(data.length - 1, Integer.parseInt(m.group(2)));
+            if (start == failAt) {
+                failAt = -1;
+                LocalApiServer.send(exchange, 500, "{\"message\":\"Server Error\"}");
+                return;
+            }
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+            send(exchange, 206, start, end + 1);
+        }
+
+        private void send(HttpExchange exchange, int status, int from, int to) throws IOException {
+            exchange.sendResponseHeaders(status, to - from);
+            OutputStream out = exchange.getResponseBody();
+            out.write(data, from, to - from);
+            out.close();
+        }
+    }
+
+    private static final Pattern RANGE_HEADER = Pattern.compile("bytes=(\\d+)-(\\d+)");
+}
@@ -0,0 +1,157 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReleaseAssetUploadTest {
+
+    private static final String ASSETS = "/repos/octocat/hello/releases/1/assets";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[3 * 1024 * 1024 + 11];
+    private final Upload upload = new Upload();
+    private final Progress progress = new Progress();
+    private GHRelease release;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(3).nextBytes(data);
+        file = tmp.newFile("hello 1.0.zip");
+        FileUtils.writeByteArrayToFile(file, data);
+
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        server.on(ASSETS, upload);
+        GHRepository repo = server.connect().getRepository("octocat/hello");
+        release = GitHub.MAPPER.readValue("{\"id\":1,\"tag_name\":\"v1.0\","
+                + "\"upload_url\":\"" + server.getUrl() + ASSETS + "{?name,label}\"}", GHRelease.class).wrap(repo);
+    }
+
+    @Test
+    public void fileIsStreamedWithItsLength() throws Exception {
+        GHAsset asset = release.uploadAsset(file, "application/zip", progress);
+
+        assertThat(asset.getName(), is("hello 1.0.zip"));
+        assertThat(upload.query, is("name=hello+1.0.zip"));
+        assertThat(upload.contentLength, is(String.valueOf(data.length)));
+        assertThat(upload.contentType, is("application/zip"));
+        assertThat(Arrays.equals(upload.body, data), is(true));
+
+        assertThat(progress.calls.size() > 1, is(true));
+        assertThat(progress.last(), is(data.length + "/" + data.length));
+    }
+
+    @Test
+    public void transientFailureIsRetried() throws Exception {
+        upload.failures = 1;
+        release.uploadAsset(file, "application/zip", progress);
+
+        assertThat(upload.posts, is(2));
+        assertThat(Arrays.equals(upload.body, data), is(true));
+        // the progress starts over with the second attempt
+        assertThat(progress.calls.contains(data.length + "/" + data.length), is(true));
+        assertThat(progress.calls.indexOf(data.length + "/" + data.length)
+                < progress.calls.lastIndexOf(data.length + "/" + data.length), is(true));
+    }
+
+    @Test
+    public void clientErrorIsNotRetried() throws Exception {
+        upload.status = 422;
+        try {
+            release.uploadAsset(file, "application/zip");
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(server.hitCount(ASSETS), is(1));
+    }
+
+    @Test
+    public void uploadThatWentThroughIsNotSentAgain() throws Exception {
+        upload.failures = 1;
+        upload.storeFailed = true;
+        GHAsset asset = release.uploadAsset(file, "application/zip");
+
+        assertThat(asset.getName(), is("hello.1.0.zip"));
+        assertThat(upload.posts, is(1));
+    }
+
+    private static class Progress implements ProgressListener {
+        final List<String> calls = new ArrayList<String>();
+
+        public void onProgress(long transferred, long total) {
+            calls.add(transferred + "/" + total);
+        }
+
+        String last() {
+            return calls.get(calls.size() - 1);
+        }
+    }
+
+    /**
+     * Records the last upload, failing the first ones with a 502 if asked to, and lists the stored assets.
+     */
+    private static class Upload implements HttpHandler {
+        volatile int failures;
+        volatile int status = 201;
+        /**
+         * Whether an upload that fails is stored anyway.
+         */
+        volatile boolean storeFailed;
+        volatile int posts;
+        volatile String stored = "[]";
+        volatile String query;
+        volatile String contentLength;
+        volatile String contentType;
+        volatile byte[] body;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                LocalApiServer.send(exchange, 200, stored);
+                return;
+            }
+            posts++;
+            query = exchange.getRequestURI().getRawQuery();
+            contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            body = IOUtils.toByteArray(exchange.getRequestBody());
+            String asset = "{\"id\":1,\"name\":\"hello 1.0.zip\",\"state\":\"uploaded\",\"size\":" + body.length + "}";
+            if (failures > 0) {
+                failures--;
+                if (storeFailed) {
+                    // under the name GitHub gives it
+                    stored = "[" + asset.replace("hello 1.0.zip", "hello.1.0.zip") + "]";
+                }
+                LocalApiServer.send(exchange, 502, "{\"message\":\"Bad Gateway\"}");
+            } else if (status != 201) {
+                LocalApiServer.send(exchange, status, "{\"message\":\"Validation Failed\"}");
+            } else {
+                stored = "[" + asset + "]";
+                LocalApiServer.send(exchange, 201, asset);
+            }
+        }
+    }
+}
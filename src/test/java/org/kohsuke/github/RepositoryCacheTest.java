@@ -0,0 +1,100 @@
+package org.kohsuke.github;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class RepositoryCacheTest {
+
+    private static final String REPO = "{\"id\":1296269,\"name\":\"Hello-World\",\"full_name\":\"octocat/Hello-World\","
+            + "\"owner\":{\"login\":\"octocat\"}}";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    private GitHub connect() throws Exception {
+        return new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRepositoryCache(new IdentityCache<GHRepository>(100, 1, TimeUnit.HOURS, IdentityCache.Strength.STRONG))
+                .build();
+    }
+
+    @Test
+    public void repositoryIsFetchedOnce() throws Exception {
+        server.json("/repos/octocat/Hello-World", REPO);
+        GitHub gitHub = connect();
+
+        GHRepository repo = gitHub.getRepository("octocat/Hello-World");
+        assertThat(gitHub.getRepository("octocat/Hello-World"), sameInstance(repo));
+        assertThat(gitHub.getRepository("OctoCat/hello-world"), sameInstance(repo));
+        assertThat(gitHub.getRepositoryById(1296269), sameInstance(repo));
+        assertThat(server.hitCount("/repos/octocat/Hello-World"), is(1));
+    }
+
+    @Test
+    public void lookupByIdFillsTheCache() throws Exception {
+        server.json("/repositories/1296269", REPO);
+        GitHub gitHub = connect();
+
+        GHRepository repo = gitHub.getRepositoryById(1296269);
+        assertThat(gitHub.getRepository("octocat/Hello-World"), sameInstance(repo));
+        assertThat(server.hitCount("/repositories/1296269"), is(1));
+    }
+
+    @Test
+    public void invalidatedRepositoryIsFetchedAgain() throws Exception {
+        server.json("/repos/octocat/Hello-World", REPO);
+        GitHub gitHub = connect();
+
+        GHRepository repo = gitHub.getRepository("octocat/Hello-World");
+        gitHub.invalidateRepository("octocat/hello-world");
+        GHRepository again = gitHub.getRepository("octocat/Hello-World");
+
+        assertThat(again, not(sameInstance(repo)));
+        assertThat(server.hitCount("/repos/octocat/Hello-World"), is(2));
+    }
+
+    @Test
+    public void editingRepositoryInvalidatesIt() throws Exception {
+        server.json("/repos/octocat/Hello-World", REPO);
+        GitHub gitHub = connect();
+
+        gitHub.getRepository("octocat/Hello-World").setDescription("changed");
+        gitHub.getRepository("octocat/Hello-World");
+        // the PATCH and a second GET
+        assertThat(server.hitCount("/repos/octocat/Hello-World"), is(3));
+    }
+
+    @Test
+    public void editingRepositoryInvalidatesItsOldNames() throws Exception {
+        // redirected from the name it had before a rename
+        server.json("/repos/octocat/Old-World", REPO);
+        server.json("/repos/octocat/Hello-World", REPO);
+        GitHub gitHub = connect();
+
+        GHRepository repo = gitHub.getRepository("octocat/Old-World");
+        repo.setDescription("changed");
+        assertThat(gitHub.getRepository("octocat/Old-World"), not(sameInstance(repo)));
+        assertThat(server.hitCount("/repos/octocat/Old-World"), is(2));
+
+        gitHub.invalidateRepository("octocat/Hello-World");
+        gitHub.getRepository("octocat/Old-World");
+        assertThat(server.hitCount("/repos/octocat/Old-World"), is(3));
+    }
+
+    @Test
+    public void withoutCacheEveryLookupIsFetched() throws Exception {
+        server.json("/repos/octocat/Hello-World", REPO);
+        GitHub gitHub = new GitHubBuilder().withEndpoint(server.getUrl()).build();
+
+        gitHub.getRepository("octocat/Hello-World");
+        gitHub.getRepository("octocat/Hello-World");
+        assertThat(server.hitCount("/repos/octocat/Hello-World"), is(2));
+    }
+}
@@ -0,0 +1,241 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RepositorySyncTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Listing issues = new Listing("/repos/octocat/hello/issues");
+    private final Listing pulls = new Listing("/repos/octocat/hello/pulls");
+    private final Listing milestones = new Listing("/repos/octocat/hello/milestones");
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        repo = server.connect().getRepository("octocat/hello");
+        issues.serve(asList(entity(1, "a", "2016-01-01T00:00:00Z"), entity(2, "b", "2016-01-02T00:00:00Z")),
+                asList(entity(3, "c", "2016-01-03T00:00:00Z")));
+        pulls.serve(asList(entity(3, "c", "2016-01-03T00:00:00Z")));
+        milestones.serve(asList(entity(1, "v1", "2016-01-01T00:00:00Z")));
+    }
+
+    @Test
+    public void secondRefreshOnlyAsksForWhatChanged() throws Exception {
+        RepositorySync sync = new RepositorySync(repo, tmp.getRoot());
+        sync.refresh();
+        assertThat(titles(sync.getIssues()), is(asList("a", "b", "c")));
+        assertThat(issues.queries.get(0), not(containsString("since")));
+
+        issues.serve(asList(entity(2, "b2", "2016-01-04T00:00:00Z")));
+        sync.refresh();
+
+        assertThat(issues.last(), containsString("since=2016-01-03T00:00:00Z"));
+        assertThat(issues.last(), containsString("sort=updated"));
+        assertThat(titles(sync.getIssues()), is(asList("a", "b2", "c")));
+    }
+
+    @Test
+    public void pullRequestsStopAtTheFirstOneAlreadyStored() throws Exception {
+        RepositorySync sync = new RepositorySync(repo, tmp.getRoot());
+        sync.refresh();
+
+        pulls.serve(asList(entity(4, "d", "2016-01-05T00:00:00Z"), entity(3, "c2", "2016-01-04T00:00:00Z")),
+                asList(entity(5, "e", "2016-01-03T12:00:00Z"), entity(6, "f", "2016-01-01T00:00:00Z")),
+                asList(entity(7, "g", "2015-01-01T00:00:00Z")));
+        sync.refresh();
+
+        assertThat(pulls.pagesServed, is(2));
+        assertThat(titles(sync.getPullRequests()), is(asList("c2", "d", "e")));
+        assertThat(sync.getPullRequests().get(0).getNumber(), is(3));
+    }
+
+    @Test
+    public void storeIsReloadedFromDisk() throws Exception {
+        new RepositorySync(repo, tmp.getRoot()).refresh();
+        int requests = issues.queries.size();
+
+        RepositorySync reopened = new RepositorySync(repo, tmp.getRoot());
+        assertThat(titles(reopened.getIssues()), is(asList("a", "b", "c")));
+        assertThat(titles(reopened.getPullRequests()), is(asList("c")));
+        assertThat(reopened.getMilestones().get(0).getTitle(), is("v1"));
+        assertThat(issues.queries.size(), is(requests));
+
+        issues.serve();
+        reopened.refresh();
+        assertThat(issues.last(), containsString("since=2016-01-03T00:00:00Z"));
+    }
+
+    @Test
+    public void interruptedRefreshResumesFromTheLastStoredPage() throws Exception {
+        issues.failAt = 2;
+        RepositorySync sync = new RepositorySync(repo, tmp.getRoot());
+        try {
+            sync.refresh();
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(titles(sync.getIssues()), is(asList("a", "b")));
+
+        issues.failAt = 0;
+        issues.serve(asList(entity(3, "c", "2016-01-03T00:00:00Z")));
+        new RepositorySync(repo, tmp.getRoot()).refresh();
+
+        assertThat(issues.last(), containsString("since=2016-01-02T00:00:00Z"));
+        assertThat(titles(new RepositorySync(repo, tmp.getRoot()).getIssues()), is(asList("a", "b", "c")));
+    }
+
+    @Test
+    public void issueUpdatedDuringTheRefreshDoesNotHideTheNextOne() throws Exception {
+        final Map<Integer, String> updated = new TreeMap<Integer, String>();
+        updated.put(1, "2016-01-01T00:00:00Z");
+        updated.put(2, "2016-01-02T00:00:00Z");
+        updated.put(3, "2016-01-03T00:00:00Z");
+        updated.put(4, "2016-01-04T00:00:00Z");
+        // sorted by update time from the oldest, two per page, like the real listing
+        server.on("/repos/octocat/hello/issues", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                issues.queries.add(query);
+                String since = query.matches(".*\\bsince=.*") ? URLDecoder.decode(query.replaceAll(".*\\bsince=([^&]*).*", "$1"), "UTF-8") : "";
+                int page = query.matches(".*\\bpage=\\d+.*") ? Integer.parseInt(query.replaceAll(".*\\bpage=(\\d+).*", "$1")) : 1;
+                List<Map.Entry<Integer, String>> matching = new ArrayList<Map.Entry<Integer, String>>();
+                synchronized (updated) {
+                    for (Map.Entry<Integer, String> e : updated.entrySet()) {
+                        if (e.getValue().compareTo(since) >= 0)
+                            matching.add(new AbstractMap.SimpleEntry<Integer, String>(e));
+                    }
+                }
+                Collections.sort(matching, new Comparator<Map.Entry<Integer, String>>() {
+                    public int compare(Map.Entry<Integer, String> a, Map.Entry<Integer, String> b) {
+                        return a.getValue().compareTo(b.getValue());
+                    }
+                });
+                if (page * 2 < matching.size())
+                    exchange.getResponseHeaders().set("Link", "<" + server.getUrl() + "/repos/octocat/hello/issues?page=" + (page + 1) + ">; rel=\"next\"");
+                StringBuilder json = new StringBuilder("[");
+                for (Map.Entry<Integer, String> e : matching.subList(Math.min(matching.size(), (page - 1) * 2), Math.min(matching.size(), page * 2))) {
+                    json.append(json.length() > 1 ? "," : "").append(entity(e.getKey(), "#" + e.getKey() + "@" + e.getValue(), e.getValue()));
+                }
+                LocalApiServer.send(exchange, 200, json.append("]").toString());
+                synchronized (updated) {
+                    // someone edits the first issue once the first page went out, moving it to the end
+                    updated.put(1, "2016-01-05T00:00:00Z");
+                }
+            }
+        });
+
+        RepositorySync sync = new RepositorySync(repo, tmp.getRoot());
+        sync.refresh();
+
+        assertThat(titles(sync.getIssues()), is(asList("#1@2016-01-05T00:00:00Z", "#2@2016-01-02T00:00:00Z",
+                "#3@2016-01-03T00:00:00Z", "#4@2016-01-04T00:00:00Z")));
+        for (String query : issues.queries) {
+            assertThat(query, not(containsString("page=2")));
+        }
+    }
+
+    @Test
+    public void incompleteWriteIsDropped() throws Exception {
+        new RepositorySync(repo, tmp.getRoot()).refresh();
+        File journal = new File(tmp.getRoot(), "octocat/hello/issues.jsonl");
+        FileOutputStream out = new FileOutputStream(journal, true);
+        out.write("{\"number\":4,\"tit".getBytes("UTF-8"));
+        out.close();
+
+        RepositorySync sync = new RepositorySync(repo, tmp.getRoot());
+        assertThat(titles(sync.getIssues()), is(asList("a", "b", "c")));
+        assertThat(FileUtils.readFileToString(journal, "UTF-8"), not(containsString("\"number\":4")));
+    }
+
+    private static List<String> titles(List<? extends GHIssue> issues) {
+        List<String> titles = new ArrayList<String>();
+        for (GHIssue i : issues) {
+            titles.add(i.getTitle());
+        }
+        return titles;
+    }
+
+    private static String entity(int number, String title, String updatedAt) {
+        return "{\"number\":" + number + ",\"title\":\"" + title + "\",\"state\":\"open\",\"updated_at\":\"" + updatedAt + "\"}";
+    }
+
+    /**
+     * Serves a listing as pages linked to each other, and records the query of every request.
+     */
+    private final class Listing implements HttpHandler {
+        private final String path;
+        private final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+        private volatile List<List<String>> pages;
+        private volatile int pagesServed;
+        /**
+         * Page that fails, or 0.
+         */
+        private volatile int failAt;
+
+        Listing(String path) {
+            this.path = path;
+        }
+
+        @SafeVarargs
+        final void serve(List<String>... pages) {
+            this.pages = asList(pages);
+            this.pagesServed = 0;
+            server.on(path, this);
+        }
+
+        String last() {
+            return queries.get(queries.size() - 1);
+        }
+
+        public void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            int page = query.matches(".*\\bpage=\\d+.*") ? Integer.parseInt(query.replaceAll(".*\\bpage=(\\d+).*", "$1")) : 1;
+            if (page == failAt) {
+                LocalApiServer.send(exchange, 404, "{\"message\":\"Not Found\"}");
+                return;
+            }
+            pagesServed++;
+            if (page < pages.size())
+                exchange.getResponseHeaders().set("Link", "<" + server.getUrl() + path + "?page=" + (page + 1) + ">; rel=\"next\"");
+            StringBuilder json = new StringBuilder("[");
+            if (page <= pages.size()) {
+                for (String e : pages.get(page - 1)) {
+                    json.append(json.length() > 1 ? "," : "").append(e);
+                }
+            }
+            LocalApiServer.send(exchange, 200, json.append("]").toString());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kohsuke.github.extras.RequestHistogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RequestListenerTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void urlTemplates() {
+        assertThat(RequestEvent.templateOf("/repos/kohsuke/github-api/pulls"), is("/repos/{owner}/{repo}/pulls"));
+        assertThat(RequestEvent.templateOf("/repos/kohsuke/github-api/pulls/42/comments"), is("/repos/{owner}/{repo}/pulls/{number}/comments"));
+        assertThat(RequestEvent.templateOf("/repos/kohsuke/github-api/contents/src/main/App.java"), is("/repos/{owner}/{repo}/contents/{path}"));
+        assertThat(RequestEvent.templateOf("/repos/kohsuke/github-api/git/refs/heads/master"), is("/repos/{owner}/{repo}/git/refs/{ref}"));
+        assertThat(RequestEvent.templateOf("/repos/kohsuke/github-api/commits/0123456789abcdef0123456789abcdef01234567/statuses"),
+                is("/repos/{owner}/{repo}/commits/{sha}/statuses"));
+        assertThat(RequestEvent.templateOf("/users/kohsuke"), is("/users/{user}"));
+        assertThat(RequestEvent.templateOf("/orgs/jenkinsci/members/kohsuke"), is("/orgs/{org}/members/{user}"));
+        assertThat(RequestEvent.templateOf("/teams/123/repos"), is("/teams/{id}/repos"));
+        assertThat(RequestEvent.templateOf("/user"), is("/user"));
+        assertThat(RequestEvent.templateOf("/"), is("/"));
+    }
+
+    @Test
+    public void reportsRequests() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+                if (attempts.incrementAndGet() == 1) {
+                    exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+                    LocalApiServer.send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                    return;
+                }
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", "4998");
+
+                StringBuilder json = new StringBuilder("{\"login\":\"kohsuke\",\"bio\":\"");
+                for (int i = 0; i < 1000; i++) json.append("padding ");
+                json.append("\"}");
+                ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                GZIPOutputStream gz = new GZIPOutputStream(gzipped);
+                gz.write(json.toString().getBytes("UTF-8"));
+                gz.close();
+
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, gzipped.size());
+                OutputStream out = exchange.getResponseBody();
+                gzipped.writeTo(out);
+                out.close();
+            }
+        });
+
+        final List<RequestEvent> started = new ArrayList<>();
+        final List<RequestEvent> ended = new ArrayList<>();
+        RequestHistogram histogram = new RequestHistogram();
+        final RequestListener recorder = new RequestListener() {
+            public void onStart(RequestEvent event) {
+                started.add(event);
+            }
+
+            public void onEnd(RequestEvent event) {
+                ended.add(event);
+            }
+        };
+        final RequestListener both = both(recorder, histogram);
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestListener(both)
+                .withRateLimitHandler(new RateLimitHandler() {
+                    @Override
+                    public void onError(IOException e, HttpURLConnection uc) {
+                        // retry right away
+                    }
+                })
+                .build();
+
+        assertThat(gitHub.getUser("kohsuke").getLogin(), is("kohsuke"));
+
+        assertThat(started.size(), is(1));
+        assertThat(ended.size(), is(1));
+        RequestEvent event = ended.get(0);
+        assertThat(event.getMethod(), is("GET"));
+        assertThat(event.getUrlTemplate(), is("/users/{user}"));
+        assertThat(event.getStatusCode(), is(200));
+        assertThat(event.getRetryCount(), is(1));
+        assertThat(event.getFailure(), is(nullValue()));
+        assertThat(event.getRateLimit().remaining, is(4998));
+        assertThat(event.getBytesDecoded() > 8000, is(true));
+        assertThat(event.getCompressionRatio() < 0.5, is(true));
+        assertThat(event.getTimeToFirstByte() >= 0, is(true));
+        assertThat(event.getDuration() >= event.getTimeToFirstByte(), is(true));
+
+        RequestHistogram.Stats stats = histogram.getStats().get("GET /users/{user}");
+        assertThat(stats, is(notNullValue()));
+        assertThat(stats.getCount(), is(1L));
+        assertThat(stats.getRetryCount(), is(1L));
+        assertThat(stats.getPercentile(0.99) >= event.getDuration(), is(true));
+        assertThat(histogram.report().contains("GET /users/{user}"), is(true));
+    }
+
+    @Test
+    public void streamedRequestEndsWhenTheBodyIsClosed() throws Exception {
+        server.json("/markdown/raw", "<p>hello</p>");
+        final List<RequestEvent> ended = new ArrayList<>();
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestListener(new RequestListener() {
+                    public void onStart(RequestEvent event) {
+                    }
+
+                    public void onEnd(RequestEvent event) {
+                        ended.add(event);
+                    }
+                })
+                .build();
+
+        InputStream in = gitHub.retrieve().asStream("/markdown/raw");
+        assertThat(ended.isEmpty(), is(true));
+        assertThat(IOUtils.toString(in, "UTF-8"), is("<p>hello</p>"));
+        in.close();
+        in.close();
+
+        assertThat(ended.size(), is(1));
+        assertThat(ended.get(0).getBytesRead(), is(12L));
+        assertThat(ended.get(0).getStatusCode(), is(200));
+    }
+
+    @Test
+    public void reportsFailures() throws Exception {
+        RequestHistogram histogram = new RequestHistogram();
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRequestListener(histogram)
+                .build();
+        try {
+            gitHub.getRepository("kohsuke/missing");
+        } catch (IOException e) {
+            // expected
+        }
+        RequestHistogram.Stats stats = histogram.getStats().get("GET /repos/{owner}/{repo}");
+        assertThat(stats.getErrorCount(), is(1L));
+    }
+
+    private static RequestListener both(final RequestListener a, final RequestListener b) {
+        return new RequestListener() {
+            public void onStart(RequestEvent event) {
+                a.onStart(event);
+                b.onStart(event);
+            }
+
+            public void onEnd(RequestEvent event) {
+                a.onEnd(event);
+                b.onEnd(event);
+            }
+        };
+    }
+}
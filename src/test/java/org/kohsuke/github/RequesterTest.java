@@ -0,0 +1,104 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequesterTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void parseStreamsArrays() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"login\":\"user").append(i).append("\",\"id\":").append(i).append('}');
+        }
+        json.append(']');
+        server.json("/users", json.toString());
+
+        GHUser[] users = server.connect().retrieve().to("/users", GHUser[].class);
+        assertThat(users.length, is(500));
+        assertThat(users[499].getLogin(), is("user499"));
+    }
+
+    @Test
+    public void searchRateLimitIsTrackedSeparately() throws Exception {
+        server.on("/search/users", rateLimited(30, 29, "{\"total_count\":0,\"items\":[]}"));
+        server.on("/users/kohsuke", rateLimited(5000, 4999, "{\"login\":\"kohsuke\"}"));
+
+        final List<RateLimitScheduler.Resource> acquired = new ArrayList<>();
+        final List<RateLimitScheduler.Resource> updated = new ArrayList<>();
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withRateLimitScheduler(new RateLimitScheduler() {
+                    @Override
+                    public void acquire(RequestPriority priority, Resource resource) {
+                        assertThat(priority, is(RequestPriority.BATCH));
+                        acquired.add(resource);
+                    }
+
+                    @Override
+                    public void update(GHRateLimit observed, Resource resource) {
+                        updated.add(resource);
+                    }
+                })
+                .withRequestPriority(RequestPriority.BATCH)
+                .build();
+
+        gitHub.searchUsers().q("kohsuke").list().asList();
+        assertThat(gitHub.lastSearchRateLimit().limit, is(30));
+        assertThat(gitHub.lastRateLimit(), is(nullValue()));
+
+        gitHub.getUser("kohsuke");
+        assertThat(gitHub.lastRateLimit().remaining, is(4999));
+        assertThat(gitHub.lastSearchRateLimit().remaining, is(29));
+
+        List<RateLimitScheduler.Resource> expected = Arrays.asList(RateLimitScheduler.Resource.SEARCH, RateLimitScheduler.Resource.CORE);
+        assertThat(acquired, is(expected));
+        assertThat(updated, is(expected));
+    }
+
+    private static HttpHandler rateLimited(final int limit, final int remaining, final String body) {
+        return new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(limit));
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+                exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 60));
+                LocalApiServer.send(exchange, 200, body);
+            }
+        };
+    }
+
+    @Test
+    public void deserializationFailureReportsBoundedPrefix() throws Exception {
+        StringBuilder json = new StringBuilder("{\"id\":\"not-a-number\",\"padding\":\"");
+        for (int i = 0; i < 10000; i++) json.append('x');
+        json.append("\"}");
+        server.json("/users/broken", json.toString());
+
+        try {
+            server.connect().retrieve().to("/users/broken", GHUser.class);
+            fail();
+        } catch (IOException e) {
+            String message = e.getCause().getMessage();
+            assertThat(message, containsString("Failed to deserialize {\"id\":\"not-a-number\""));
+            assertThat(message.length() < 5000, is(true));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kohsuke.github.extras.FileResponseCache;
+import org.kohsuke.github.extras.InMemoryResponseCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ResponseCacheTest {
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private int notModified;
+
+    @Test
+    public void replaysBodyOnNotModified() throws Exception {
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified++;
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    LocalApiServer.send(exchange, 304, "");
+                } else {
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\",\"id\":1}");
+                }
+            }
+        });
+        GitHub gitHub = new GitHubBuilder().withEndpoint(server.getUrl())
+                .withResponseCache(new InMemoryResponseCache(1024 * 1024)).build();
+
+        assertThat(gitHub.retrieve().to("/users/kohsuke", GHUser.class).getLogin(), is("kohsuke"));
+        assertThat(gitHub.retrieve().to("/users/kohsuke", GHUser.class).getLogin(), is("kohsuke"));
+        assertThat(gitHub.retrieve().to("/users/kohsuke", GHUser.class).getId(), is(1L));
+        assertThat(server.hitCount("/users/kohsuke"), is(3));
+        assertThat(notModified, is(2));
+    }
+
+    @Test
+    public void streamedResponsesAreNotConditional() throws Exception {
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified++;
+                    LocalApiServer.send(exchange, 304, "");
+                } else {
+                    LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\",\"id\":1}");
+                }
+            }
+        });
+        GitHub gitHub = new GitHubBuilder().withEndpoint(server.getUrl())
+                .withResponseCache(new InMemoryResponseCache(1024 * 1024)).build();
+
+        gitHub.retrieve().to("/users/kohsuke", GHUser.class);
+        InputStream in = gitHub.retrieve().asStream("/users/kohsuke");
+        try {
+            assertThat(IOUtils.toString(in, "UTF-8"), is("{\"login\":\"kohsuke\",\"id\":1}"));
+        } finally {
+            in.close();
+        }
+        assertThat(gitHub.retrieve().asHttpStatusCode("/users/kohsuke"), is(200));
+        assertThat(notModified, is(0));
+    }
+
+    @Test
+    public void inMemoryEvictsLeastRecentlyUsed() {
+        InMemoryResponseCache cache = new InMemoryResponseCache(400);
+        cache.put("a", response(100));
+        cache.put("b", response(100));
+        cache.get("a");
+        cache.put("c", response(100));
+
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("a").getBody().length, is(100));
+        assertThat(cache.get("c").getBody().length, is(100));
+        assertThat(cache.size(), is(cache.get("a").size() + cache.get("c").size() + 0L));
+    }
+
+    @Test
+    public void fileCacheSurvivesRestartAndStaysBounded() throws Exception {
+        File dir = tmp.newFolder();
+        FileResponseCache cache = new FileResponseCache(dir, 10000);
+        cache.put("a", new CachedResponse("\"etag\"", null, "<next>; rel=\"next\"", new byte[]{1, 2, 3}));
+
+        CachedResponse r = new FileResponseCache(dir, 10000).get("a");
+        assertThat(r.getETag(), is("\"etag\""));
+        assertThat(r.getLastModified(), is(nullValue()));
+        assertThat(r.getLink(), is("<next>; rel=\"next\""));
+        assertThat(r.getBody().length, is(3));
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, response(3000));
+        }
+        assertThat(cache.size() <= 10000, is(true));
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.get("k9").getBody().length, is(3000));
+    }
+
+    private static CachedResponse response(int size) {
+        return new CachedResponse(null, "Thu, 01 Jan 2015 00:00:00 GMT", null, new byte[size]);
+    }
+}
@@ -0,0 +1,79 @@
+package org.kohsuke.github;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TimestampsTest {
+
+    @Test
+    public void parsesBothFormats() {
+        assertThat(Timestamps.parse("2017-07-14T02:40:00Z"), is(1500000000000L));
+        assertThat(Timestamps.parse("2017/07/14 02:40:00 +0000"), is(1500000000000L));
+        assertThat(Timestamps.parse("2017/07/13 19:40:00 -0700"), is(1500000000000L));
+    }
+
+    @Test
+    public void parsesVariations() {
+        assertThat(Timestamps.parse("2017-07-14T02:40:00.123Z"), is(1500000000123L));
+        assertThat(Timestamps.parse("2017-07-14T02:40:00.1Z"), is(1500000000100L));
+        assertThat(Timestamps.parse("2017-07-14T04:40:00+02:00"), is(1500000000000L));
+        assertThat(Timestamps.parse("2017-07-14T04:40:00+0200"), is(1500000000000L));
+        assertThat(Timestamps.parse("1969-12-31T23:59:59Z"), is(-1000L));
+        assertThat(Timestamps.parse("2016-02-29T00:00:00Z"), is(1456704000000L));
+    }
+
+    @Test
+    public void rejectsWithoutThrowing() {
+        assertThat(Timestamps.parse(""), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-07-14"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-07-14 02:40:00Z"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-13-14T02:40:00Z"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-07-14T02:40:00"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-07-14T02:40:00Zjunk"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017/07/14 02:40:00Z"), is(Timestamps.INVALID));
+        assertThat(Timestamps.parse("2017-07-14T02:4x:00Z"), is(Timestamps.INVALID));
+    }
+
+    @Test
+    public void agreesWithSimpleDateFormat() throws Exception {
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        iso.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // within a century either side of 1970, in whole seconds
+            long time = (random.nextLong() % (100L * 365 * 24 * 3600)) * 1000;
+            String text = iso.format(new Date(time));
+            assertThat(text, Timestamps.print(time), is(text));
+            assertThat(text, Timestamps.parse(text), is(iso.parse(text).getTime()));
+        }
+    }
+
+    @Test
+    public void printsInUtc() {
+        assertThat(GitHub.printDate(new Date(1500000000999L)), is("2017-07-14T02:40:00Z"));
+        assertThat(Timestamps.print(-1L), is("1969-12-31T23:59:59Z"));
+    }
+
+    @Test
+    public void parsedFieldFollowsNewValues() {
+        Timestamps.Parsed p = Timestamps.Parsed.of("2017-07-14T02:40:00Z", null);
+        assertThat(Timestamps.Parsed.of("2017-07-14T02:40:00Z", p) == p, is(true));
+
+        Timestamps.Parsed q = Timestamps.Parsed.of("2017-07-14T02:40:01Z", p);
+        assertThat(Timestamps.Parsed.toDate(q).getTime(), is(1500000001000L));
+        assertThat(Timestamps.Parsed.of(null, q), is((Timestamps.Parsed) null));
+    }
+
+    @Test
+    public void fallsBackToLenientParsing() {
+        // a single digit day is something only SimpleDateFormat accepts
+        assertThat(GitHub.parseDate("2017/07/4 02:40:00 +0000").getTime(), is(1499136000000L));
+    }
+}
@@ -0,0 +1,156 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kohsuke.github.RateLimitScheduler.Resource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TokenPoolTest {
+
+    private static final long NOW = 1000000000000L;
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    @Test
+    public void picksTokenWithMostRemaining() {
+        TokenPool pool = new TokenPool("aaaa", "bbbb", "cccc");
+        TokenPool.Token a = pool.getTokens().get(0), b = pool.getTokens().get(1), c = pool.getTokens().get(2);
+        pool.update(a, rateLimit(10), Resource.CORE, NOW);
+        pool.update(b, rateLimit(30), Resource.CORE, NOW);
+        pool.update(c, rateLimit(20), Resource.CORE, NOW);
+
+        assertThat(pool.select(Resource.CORE, NOW), is(b));
+        assertThat(b.getRateLimit(Resource.CORE).remaining, is(29));
+        // the search budget is tracked separately, and untried tokens go first
+        assertThat(pool.select(Resource.SEARCH, NOW), is(a));
+    }
+
+    @Test
+    public void rateLimitIsCombinedOverThePool() throws Exception {
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                boolean low = "token low".equals(exchange.getRequestHeaders().getFirst("Authorization"));
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", low ? "100" : "4000");
+                exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + (low ? 600 : 3600)));
+                LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\"}");
+            }
+        });
+        final List<Integer> scheduled = new ArrayList<>();
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withTokenPool(new TokenPool("low", "high"))
+                .withRateLimitScheduler(new RateLimitScheduler() {
+                    @Override
+                    public void acquire(RequestPriority priority, Resource resource) {
+                    }
+
+                    @Override
+                    public void update(GHRateLimit observed, Resource resource) {
+                        scheduled.add(observed.remaining);
+                    }
+                })
+                .build();
+
+        gitHub.getUser("kohsuke");
+        // the other token hasn't been used yet
+        assertThat(gitHub.lastRateLimit().remaining, is(100 + 5000));
+        gitHub.refreshCache();
+        gitHub.getUser("kohsuke");
+        assertThat(gitHub.lastRateLimit().remaining, is(100 + 4000));
+        assertThat(gitHub.lastRateLimit().limit, is(10000));
+        // the first token to reset
+        assertThat(gitHub.lastRateLimit().getResetDate().getTime() < System.currentTimeMillis() + 700 * 1000, is(true));
+        assertThat(scheduled, is(Arrays.asList(5100, 4100)));
+    }
+
+    @Test
+    public void failsOverToAnotherToken() throws Exception {
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String reset = String.valueOf(System.currentTimeMillis() / 1000 + 3600);
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().set("X-RateLimit-Reset", reset);
+                if ("token exhausted".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                    exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+                    LocalApiServer.send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                } else {
+                    exchange.getResponseHeaders().set("X-RateLimit-Remaining", "4999");
+                    LocalApiServer.send(exchange, 200, "{\"login\":\"kohsuke\"}");
+                }
+            }
+        });
+
+        TokenPool pool = new TokenPool("exhausted", "fresh");
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withTokenPool(pool)
+                .withRateLimitHandler(RateLimitHandler.FAIL)
+                .build();
+
+        assertThat(gitHub.getUser("kohsuke").getLogin(), is("kohsuke"));
+
+        TokenPool.Token exhausted = pool.getTokens().get(0), fresh = pool.getTokens().get(1);
+        assertThat(exhausted.getRequestCount(), is(1L));
+        assertThat(exhausted.getFailoverCount(), is(1L));
+        assertThat(exhausted.getRateLimit(Resource.CORE).remaining, is(0));
+        assertThat(fresh.getRequestCount(), is(1L));
+        assertThat(fresh.getRateLimit(Resource.CORE).remaining, is(4999));
+        assertThat(fresh.getName(), is("#2"));
+    }
+
+    @Test
+    public void onlyLongTokensAreNamedAfterTheirEnd() {
+        TokenPool pool = new TokenPool("0123456789abcdef0123456789abcdef01234567", "abcd");
+        assertThat(pool.getTokens().get(0).getName(), is("...4567"));
+        assertThat(pool.getTokens().get(1).getName(), is("#2"));
+    }
+
+    @Test
+    public void fallsBackToRateLimitHandlerWhenAllAreExhausted() throws Exception {
+        server.on("/users/kohsuke", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+                exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+                LocalApiServer.send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+            }
+        });
+
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(server.getUrl())
+                .withTokenPool(new TokenPool("one", "two"))
+                .withRateLimitHandler(RateLimitHandler.FAIL)
+                .build();
+        try {
+            gitHub.getUser("kohsuke");
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("API rate limit reached"));
+        }
+        assertThat(server.hitCount("/users/kohsuke"), is(2));
+    }
+
+    private static GHRateLimit rateLimit(int remaining) {
+        GHRateLimit r = new GHRateLimit();
+        r.limit = 5000;
+        r.remaining = remaining;
+        r.reset = new Date(NOW / 1000 + 3600);
+        return r;
+    }
+}
@@ -0,0 +1,114 @@
+package org.kohsuke.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class TreeDiffTest {
+
+    private static final String TREES = "/repos/octocat/hello/git/trees/";
+
+    @Rule
+    public final LocalApiServer server = new LocalApiServer();
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private GHRepository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        server.json("/repos/octocat/hello", "{\"name\":\"hello\",\"full_name\":\"octocat/hello\",\"owner\":{\"login\":\"octocat\"}}");
+        repo = server.connect().getRepository("octocat/hello");
+
+        tree("base", false, blob("README", "r1"), tree("docs", "docs"), tree("src", "src1"), blob("lib", "l1"));
+        tree("src1", false, blob("a.txt", "a1"), blob("b.txt", "b1"), tree("old", "old"));
+        tree("old", true, blob("x.txt", "x1"));
+
+        tree("head", false, blob("README", "r2"), tree("docs", "docs"), tree("src", "src2"), tree("lib", "lib"));
+        tree("src2", false, blob("a.txt", "a1"), blob("b.txt", "b2"), tree("new", "new"));
+        tree("new", true, tree("deep", "deep"), blob("deep/z.txt", "z1"), blob("y.txt", "y1"));
+        tree("lib", true, blob("c.txt", "c1"));
+    }
+
+    @Test
+    public void onlyDifferingSubtreesAreWalked() throws Exception {
+        List<GHTreeChange> changes = repo.getTreeChanges(sha("base"), sha("head"));
+
+        assertThat(describe(changes), is(asList("MODIFIED README", "REMOVED lib", "ADDED lib/c.txt", "MODIFIED src/b.txt",
+                "ADDED src/new/deep/z.txt", "ADDED src/new/y.txt", "REMOVED src/old/x.txt")));
+        assertThat(server.hitCount(TREES + sha("docs")), is(0));
+        assertThat(changes.get(0).getBaseEntry().getSha(), is(sha("r1")));
+        assertThat(changes.get(0).getHeadEntry().getSha(), is(sha("r2")));
+        assertThat(changes.get(2).getBaseEntry(), nullValue());
+        assertThat(changes.get(6).getHeadEntry(), nullValue());
+    }
+
+    @Test
+    public void treesAreReusedAcrossCalls() throws Exception {
+        repo.getTreeChanges(sha("base"), sha("head"));
+        int first = fetches.get();
+        List<GHTreeChange> reverse = repo.getTreeChanges(sha("head"), sha("base"));
+
+        assertThat(describe(reverse), is(asList("MODIFIED README", "ADDED lib", "REMOVED lib/c.txt", "MODIFIED src/b.txt",
+                "REMOVED src/new/deep/z.txt", "REMOVED src/new/y.txt", "ADDED src/old/x.txt")));
+        assertThat(fetches.get(), is(first));
+    }
+
+    @Test
+    public void identicalTreesAreNotFetched() throws Exception {
+        assertThat(repo.getTreeChanges(sha("base"), sha("base")).isEmpty(), is(true));
+        assertThat(fetches.get(), is(0));
+    }
+
+    private static List<String> describe(List<GHTreeChange> changes) {
+        List<String> s = new ArrayList<String>();
+        for (GHTreeChange c : changes) {
+            s.add(c.toString());
+        }
+        return s;
+    }
+
+    private static String sha(String name) {
+        return DigestUtils.sha1Hex(name);
+    }
+
+    private static String blob(String path, String content) {
+        return "{\"path\":\"" + path + "\",\"type\":\"blob\",\"mode\":\"100644\",\"sha\":\"" + sha(content) + "\",\"size\":1}";
+    }
+
+    private static String tree(String path, String name) {
+        return "{\"path\":\"" + path + "\",\"type\":\"tree\",\"mode\":\"040000\",\"sha\":\"" + sha(name) + "\"}";
+    }
+
+    /**
+     * Serves the tree named by the SHA-1 of the given name. A tree that is only listed recursively
+     * is only expected to be fetched that way.
+     */
+    private void tree(String name, final boolean recursive, String... entries) {
+        StringBuilder json = new StringBuilder("{\"sha\":\"" + sha(name) + "\",\"truncated\":false,\"tree\":[");
+        for (int i = 0; i < entries.length; i++) {
+            json.append(i > 0 ? "," : "").append(entries[i]);
+        }
+        final String body = json.append("]}").toString();
+        server.on(TREES + sha(name), new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                boolean asked = query != null && query.contains("recursive=1");
+                fetches.incrementAndGet();
+                LocalApiServer.send(exchange, asked == recursive ? 200 : 404, asked == recursive ? body : "{\"message\":\"Not Found\"}");
+            }
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package org.kohsuke.github;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.kohsuke.github.WebhookDispatcher.Result.*;
+
+public class WebhookDispatcherTest {
+
+    private static final String SECRET = "It's a Secret to Everybody";
+
+    private final BlockingQueue<GHEventPayload> handled = new LinkedBlockingQueue<>();
+    private final ExecutorService caller = Executors.newSingleThreadExecutor();
+    private WebhookDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        caller.shutdownNow();
+        if (dispatcher != null)
+            dispatcher.close();
+    }
+
+    @Test
+    public void deliveryIsParsedAndHandedToTheHandlersOfItsType() throws Exception {
+        dispatcher = new WebhookDispatcher(GitHub.offline(), SECRET)
+                .on(GHEventPayload.Push.class, new Collect<GHEventPayload.Push>())
+                .on(GHEventPayload.class, new Collect<GHEventPayload>());
+        byte[] body = payload("push");
+
+        assertThat(dispatcher.dispatch("push", "1", sha256(body), body), is(ACCEPTED));
+
+        GHEventPayload.Push push = (GHEventPayload.Push) handled.poll(10, TimeUnit.SECONDS);
+        assertThat(push.getRef(), is("refs/heads/changes"));
+        assertThat(push.getRepository().getName(), is("public-repo"));
+        assertThat(handled.poll(10, TimeUnit.SECONDS), is((GHEventPayload) push));
+    }
+
+    @Test
+    public void signatureIsChecked() throws Exception {
+        dispatcher = new WebhookDispatcher(GitHub.offline(), SECRET).on(GHEventPayload.class, new Collect<GHEventPayload>());
+        byte[] body = payload("push");
+
+        assertThat(dispatcher.dispatch("push", "1", null, body), is(UNAUTHORIZED));
+        assertThat(dispatcher.dispatch("push", "1", hmac("HmacSHA256", "wrong", body), body), is(UNAUTHORIZED));
+        assertThat(dispatcher.dispatch("push", "1", "sha256=nothex", body), is(UNAUTHORIZED));
+        assertThat(dispatcher.dispatch("push", "1", "md5=00", body), is(UNAUTHORIZED));
+        assertThat(dispatcher.dispatch("push", "1", hmac("HmacSHA1", SECRET, body), body), is(ACCEPTED));
+    }
+
+    @Test
+    public void eventsWithoutHandlerAreIgnored() throws Exception {
+        dispatcher = new WebhookDispatcher(GitHub.offline(), null).on(GHEventPayload.Push.class, new Collect<GHEventPayload.Push>());
+        byte[] body = payload("fork");
+
+        assertThat(dispatcher.dispatch("fork", "1", null, body), is(IGNORED));
+        assertThat(dispatcher.dispatch("watch", "2", null, payload("watch")), is(IGNORED));
+        assertThat(dispatcher.dispatch("something_new", "3", null, body), is(IGNORED));
+        assertThat(dispatcher.dispatch(null, "4", null, body), is(IGNORED));
+    }
+
+    @Test
+    public void redeliveryIsDroppedUnlessHandlingFailed() throws Exception {
+        final int[] calls = {0};
+        dispatcher = new WebhookDispatcher(GitHub.offline(), null).on(GHEventPayload.Fork.class, new WebhookDispatcher.Handler<GHEventPayload.Fork>() {
+            public void onDelivery(String deliveryId, GHEventPayload.Fork payload) throws IOException {
+                handled.add(payload);
+                if (deliveryId.equals("bad") && calls[0]++ == 0)
+                    throw new IOException("boom");
+            }
+        });
+        byte[] body = payload("fork");
+
+        assertThat(dispatcher.dispatch("fork", "good", null, body), is(ACCEPTED));
+        handled.poll(10, TimeUnit.SECONDS);
+        assertThat(dispatcher.dispatch("fork", "good", null, body), is(DUPLICATE));
+
+        assertThat(dispatcher.dispatch("fork", "bad", null, body), is(ACCEPTED));
+        handled.poll(10, TimeUnit.SECONDS);
+        // the failure is only known once the handler returned
+        Thread.sleep(100);
+        assertThat(dispatcher.dispatch("fork", "bad", null, body), is(ACCEPTED));
+        assertThat(handled.poll(10, TimeUnit.SECONDS) != null, is(true));
+    }
+
+    @Test
+    public void redeliveryOnlyGoesToTheHandlersThatFailed() throws Exception {
+        final int[] calls = {0};
+        final Collect<GHEventPayload.Fork> ok = new Collect<GHEventPayload.Fork>();
+        dispatcher = new WebhookDispatcher(GitHub.offline(), null)
+                .on(GHEventPayload.Fork.class, ok)
+                .on(GHEventPayload.Fork.class, new WebhookDispatcher.Handler<GHEventPayload.Fork>() {
+                    public void onDelivery(String deliveryId, GHEventPayload.Fork payload) throws IOException {
+                        if (calls[0]++ == 0)
+                            throw new IOException("boom");
+                    }
+                });
+        byte[] body = payload("fork");
+
+        assertThat(dispatcher.dispatch("fork", "1", null, body), is(ACCEPTED));
+        handled.poll(10, TimeUnit.SECONDS);
+        // the failure is only known once the handler returned
+        Thread.sleep(100);
+        assertThat(dispatcher.dispatch("fork", "1", null, body), is(ACCEPTED));
+        Thread.sleep(100);
+        assertThat(calls[0], is(2));
+        assertThat(handled.poll(), nullValue());
+        assertThat(dispatcher.dispatch("fork", "1", null, body), is(DUPLICATE));
+    }
+
+    @Test
+    public void dispatchWaitsForRoom() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new WebhookDispatcher(GitHub.offline(), null, 1, 1).on(GHEventPayload.Fork.class, new WebhookDispatcher.Handler<GHEventPayload.Fork>() {
+            public void onDelivery(String deliveryId, GHEventPayload.Fork payload) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e.toString());
+                }
+            }
+        });
+        final byte[] body = payload("fork");
+        assertThat(dispatcher.dispatch("fork", "1", null, body), is(ACCEPTED));
+        assertThat(dispatcher.dispatch("fork", "2", null, body), is(ACCEPTED));
+
+        Future<WebhookDispatcher.Result> third = caller.submit(new Callable<WebhookDispatcher.Result>() {
+            public WebhookDispatcher.Result call() throws Exception {
+                return dispatcher.dispatch("fork", "3", null, body);
+            }
+        });
+        try {
+            third.get(300, TimeUnit.MILLISECONDS);
+            fail("should wait while the handler is busy");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        release.countDown();
+        assertThat(third.get(10, TimeUnit.SECONDS), is(ACCEPTED));
+    }
+
+    @Test
+    public void closedDispatcherRefusesDeliveries() throws Exception {
+        dispatcher = new WebhookDispatcher(GitHub.offline(), null).on(GHEventPayload.Fork.class, new Collect<GHEventPayload.Fork>());
+        dispatcher.close();
+        assertThat(dispatcher.dispatch("fork", "1", null, payload("fork")), is(OVERLOADED));
+        assertThat(handled.poll(), nullValue());
+    }
+
+    private static String sha256(byte[] body) throws Exception {
+        return hmac("HmacSHA256", SECRET, body);
+    }
+
+    private static String hmac(String algorithm, String secret, byte[] body) throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(secret.getBytes("UTF-8"), algorithm));
+        return (algorithm.endsWith("256") ? "sha256=" : "sha1=") + Hex.encodeHexString(mac.doFinal(body));
+    }
+
+    private static byte[] payload(String name) throws IOException {
+        InputStream in = WebhookDispatcherTest.class.getResourceAsStream("GHEventPayloadTest/" + name + ".json");
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private final class Collect<T extends GHEventPayload> implements WebhookDispatcher.Handler<T> {
+        public void onDelivery(String deliveryId, T payload) {
+            handled.add(payload);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.kohsuke.github.extras;
+
+import org.junit.Test;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.RateLimitScheduler.Resource;
+
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.kohsuke.github.RequestPriority.BATCH;
+import static org.kohsuke.github.RequestPriority.INTERACTIVE;
+import static org.kohsuke.github.RequestPriority.NORMAL;
+
+public class PacingRateLimitSchedulerTest {
+
+    private static final long NOW = 1000000000000L;
+
+    @Test
+    public void unknownBudgetIsNotPaced() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0);
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+    }
+
+    @Test
+    public void spreadsRemainingBudgetOverTheWindow() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0);
+        scheduler.update(rateLimit(100, 10, 10), Resource.CORE);
+
+        // 10 requests left for 10 seconds: one per second, then what is left is spread over what remains of the window
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(1000L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(1000L + 10000L / 9));
+    }
+
+    @Test
+    public void allowsBurst() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(2, 0);
+        scheduler.update(rateLimit(100, 10, 10), Resource.CORE);
+
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW) > 0, is(true));
+    }
+
+    @Test
+    public void interactiveIsOnlyHeldBackWhenExhausted() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0);
+        scheduler.update(rateLimit(100, 2, 10), Resource.CORE);
+
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(0L));
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(10000L));
+    }
+
+    @Test
+    public void batchLeavesReserveToOthers() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0.1f);
+        scheduler.update(rateLimit(100, 10, 10), Resource.CORE);
+
+        // 10 of the 100 are reserved, so batch requests have to wait for the reset
+        assertThat(scheduler.reserve(BATCH, Resource.CORE, NOW), is(10000L));
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(0L));
+    }
+
+    @Test
+    public void searchBudgetIsSeparate() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0);
+        scheduler.update(rateLimit(30, 0, 60), Resource.SEARCH);
+
+        assertThat(scheduler.reserve(NORMAL, Resource.SEARCH, NOW), is(60000L));
+        assertThat(scheduler.reserve(NORMAL, Resource.CORE, NOW), is(0L));
+    }
+
+    @Test
+    public void observedRemainingOnlyLowersTheLocalCount() {
+        PacingRateLimitScheduler scheduler = new PacingRateLimitScheduler(0, 0);
+        scheduler.update(rateLimit(100, 1, 10), Resource.CORE);
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(0L));
+
+        // a response that left before the reservation above still reports one remaining
+        scheduler.update(rateLimit(100, 1, 10), Resource.CORE);
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(10000L));
+
+        // until the window resets
+        scheduler.update(rateLimit(100, 100, 3610), Resource.CORE);
+        assertThat(scheduler.reserve(INTERACTIVE, Resource.CORE, NOW), is(0L));
+    }
+
+    private static GHRateLimit rateLimit(int limit, int remaining, int resetInSeconds) {
+        GHRateLimit r = new GHRateLimit();
+        r.limit = limit;
+        r.remaining = remaining;
+        r.reset = new Date(NOW / 1000 + resetInSeconds);
+        return r;
+    }
+}